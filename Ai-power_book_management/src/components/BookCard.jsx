@@ -1,8 +1,11 @@
 import { FaEdit, FaTrashAlt } from "react-icons/fa";
 
+const API_BASE_URL = "http://localhost:8080/api/books";
+
 export default function BookCard({ book, onEdit, onDelete }) {
-  const imageUrl = book.coverImage 
-    ? `data:${book.imageType || 'image/png'};base64,${book.coverImage}`
+  // Card sized variant by content key: small, WebP where supported, cached for a year
+  const imageUrl = book.coverKey
+    ? `${API_BASE_URL}/covers/${book.coverKey}?size=card`
     : '/placeholder-book.png';
 console.log("BookCard rendered with book:", book.userEmail);
   return (
@@ -26,6 +29,8 @@ console.log("BookCard rendered with book:", book.userEmail);
         <img 
           src={imageUrl} 
           alt={book.title} 
+          loading="lazy"
+          decoding="async"
           className="w-32 h-44 object-cover rounded-md shadow-md"
           onError={(e) => {
             e.target.src = '/placeholder-book.png';
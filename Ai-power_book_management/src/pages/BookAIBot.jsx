@@ -20,7 +20,7 @@ export default function BookAIBot() {
     }
   }, [messages, loading]);
 
-  async function sendMessage(e) {
+  function sendMessage(e) {
     e.preventDefault();
     if (!input.trim()) return;
     setError("");
@@ -28,24 +28,34 @@ export default function BookAIBot() {
     setLoading(true);
     const userMessage = input;
     setInput("");
-    try {
-      const url = `${API_URL}?message=${encodeURIComponent(userMessage)}`;
-      const res = await fetch(url);
-      if (!res.ok) throw new Error("AI server error");
-      const data = await res.json();
-      setMessages(prev => [
-        ...prev,
-        { role: "ai", content: data.response || "Sorry, I didn't get that." }
-      ]);
-    } catch (err) {
-      setError("Failed to connect to AI.");
-      setMessages(prev => [
-        ...prev,
-        { role: "ai", content: "Sorry, something went wrong with the AI server." }
-      ]);
-    } finally {
+    // Stream the answer chunk by chunk over Server-Sent Events
+    let received = false;
+    const source = new EventSource(`${API_URL}/stream?message=${encodeURIComponent(userMessage)}`);
+    source.onmessage = (event) => {
+      const chunk = JSON.parse(event.data).response || "";
+      if (!received) {
+        received = true;
+        setLoading(false);
+        setMessages(prev => [...prev, { role: "ai", content: chunk }]);
+      } else {
+        setMessages(prev => {
+          const last = prev[prev.length - 1];
+          return [...prev.slice(0, -1), { ...last, content: last.content + chunk }];
+        });
+      }
+    };
+    // Fired when the server completes the stream as well as on failures; never let it reconnect
+    source.onerror = () => {
+      source.close();
+      if (!received) {
+        setError("Failed to connect to AI.");
+        setMessages(prev => [
+          ...prev,
+          { role: "ai", content: "Sorry, something went wrong with the AI server." }
+        ]);
+      }
       setLoading(false);
-    }
+    };
   }
 
   return (
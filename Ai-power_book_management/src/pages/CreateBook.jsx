@@ -10,6 +10,7 @@ export default function CreateBook() {
     pageCount: "",
     description: "",
     img: "", // AI or preview data URL
+    coverKey: "", // AI generated cover already in the cover store
     read: false,
   });
 
@@ -29,18 +30,16 @@ export default function CreateBook() {
       [name]: type === "checkbox" ? checked : value,
     }));
   }
-  // AI: Generate all book details
-  async function handleAIGenerate() {
+  // AI: Generate all book details (metadata first, cover when it is ready)
+  function handleAIGenerate() {
     if (!form.title.trim()) return;
     setGeneratingAI(true);
     setError("");
-    try {
-      const res = await fetch(
-        `${BASE_URL}/generate-ai-book-details?title=${encodeURIComponent(form.title)}`,
-        { method: "POST" }
-      );
-      if (!res.ok) throw new Error("Failed to generate details");
-      const data = await res.json();
+    const source = new EventSource(
+      `${BASE_URL}/generate-ai-book-details/stream?title=${encodeURIComponent(form.title)}`
+    );
+    source.addEventListener("metadata", (event) => {
+      const data = JSON.parse(event.data);
       setForm(f => ({
         ...f,
         title: data.title || f.title,
@@ -48,19 +47,27 @@ export default function CreateBook() {
         author: data.author || "",
         pageCount: data.pageCount || "",
         description: data.description || "",
-        img: data.coverImage
-          ? `data:image/png;base64,${data.coverImage}`
-          : "",
+      }));
+    });
+    source.addEventListener("cover", (event) => {
+      const data = JSON.parse(event.data);
+      setForm(f => ({
+        ...f,
+        img: data.coverKey ? `${BASE_URL}/covers/${data.coverKey}` : "",
+        coverKey: data.coverKey || "",
       }));
       // Update preview if there's an AI image and no uploaded image
-      if (!fileInputRef.current?.files[0] && data.coverImage) {
-        setImgSource(`data:image/png;base64,${data.coverImage}`);
+      if (!fileInputRef.current?.files[0] && data.coverKey) {
+        setImgSource(`${BASE_URL}/covers/${data.coverKey}`);
       }
-    } catch (err) {
-      setError(err.message || "Error generating book details");
-    } finally {
+      source.close();
       setGeneratingAI(false);
-    }
+    });
+    source.addEventListener("error", (event) => {
+      source.close();
+      setGeneratingAI(false);
+      if (event.data) setError(event.data);
+    });
   }
 
   // Submit book (with image: file upload or AI image)
@@ -78,23 +85,17 @@ export default function CreateBook() {
         description: form.description,
         read: form.read,
       };
+      // Prefer file input, else reference the stored AI cover
+      const file = fileInputRef.current?.files[0];
+      if (!file && form.coverKey) {
+        bookData.coverKey = form.coverKey;
+        bookData.imageType = "image/png";
+      }
       const formData = new FormData();
       formData.append(
         "book",
         new Blob([JSON.stringify(bookData)], { type: "application/json" })
       );
-      // Prefer file input, else use AI image if present
-      let file = fileInputRef.current?.files[0];
-      if (!file && form.img && form.img.startsWith("data:image/")) {
-        // Convert base64 to Blob/File (PNG only)
-        const byteString = atob(form.img.split(",")[1]);
-        const ab = new ArrayBuffer(byteString.length);
-        const ia = new Uint8Array(ab);
-        for (let i = 0; i < byteString.length; i++) {
-          ia[i] = byteString.charCodeAt(i);
-        }
-        file = new File([ab], "cover.png", { type: "image/png" });
-      }
       if (file) formData.append("image", file);
 
       const res = await fetch(BASE_URL, {
@@ -112,6 +113,7 @@ export default function CreateBook() {
         pageCount: "",
         description: "",
         img: "",
+        coverKey: "",
         read: false,
       });
       setImgSource("");
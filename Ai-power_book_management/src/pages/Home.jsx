@@ -67,6 +67,8 @@ export default function Home() {
   const [error, setError] = useState("");
   const [deleteBook, setDeleteBook] = useState(null);
   const [editBook, setEditBook] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   const [searchText, setSearchText] = useState("");
   const [isRecording, setIsRecording] = useState(false);
@@ -81,13 +83,35 @@ export default function Home() {
   function fetchBooks() {
     setLoading(true);
     setError("");
-    fetch(`${API_BASE_URL}/get-books`)
+    fetch(API_BASE_URL)
       .then(res => res.ok ? res.json() : Promise.reject("Failed to fetch books."))
-      .then(data => { setBooks(data); setAllBooks(data); })
+      .then(data => { setBooks(data.books); setAllBooks(data.books); setNextCursor(data.nextCursor); })
       .catch(err => setError(err))
       .finally(() => setLoading(false));
   }
 
+  function fetchMoreBooks() {
+    setLoadingMore(true);
+    fetch(`${API_BASE_URL}?after=${nextCursor}`)
+      .then(res => res.ok ? res.json() : Promise.reject("Failed to fetch books."))
+      .then(data => {
+        const merged = [...allBooks, ...data.books];
+        setBooks(merged);
+        setAllBooks(merged);
+        setNextCursor(data.nextCursor);
+      })
+      .catch(err => setError(err))
+      .finally(() => setLoadingMore(false));
+  }
+
+  // Listing only carries summaries, load the full book before editing
+  function handleEdit(book) {
+    fetch(`${API_BASE_URL}/${book.id}`)
+      .then(res => res.ok ? res.json() : Promise.reject("Failed to load book."))
+      .then(data => setEditBook(data))
+      .catch(err => setError(err));
+  }
+
   function handleTextSearch(e) {
     if (e.key === "Enter" || e.type === "click") {
       setLoading(true);
@@ -120,7 +144,8 @@ export default function Home() {
     }
     try {
       const stream = await navigator.mediaDevices.getUserMedia({ audio: true });
-      const mediaRecorder = new MediaRecorder(stream, { mimeType: "audio/webm" });
+      // Speech needs far less than the default recording bitrate; smaller uploads reach the server sooner
+      const mediaRecorder = new MediaRecorder(stream, { mimeType: "audio/webm", audioBitsPerSecond: 32000 });
       mediaRecorderRef.current = mediaRecorder;
       chunksRef.current = [];
 
@@ -153,6 +178,8 @@ export default function Home() {
         body: formData,
       });
 
+      if (res.status === 413) throw new Error("Recording is too long, keep it under a minute");
+      if (res.status === 503) throw new Error("Voice search is unavailable right now, type your search instead");
       if (!res.ok) throw new Error("Voice search failed");
       const data = await res.json();
       setBooks(data);
@@ -170,17 +197,31 @@ export default function Home() {
     setBooks(allBooks);
   }
 
+  // Apply deletes and edits to the loaded list instead of refetching everything
+  function replaceInLists(change) {
+    setBooks(list => change(list));
+    setAllBooks(list => change(list));
+  }
+
   function handleDeleteConfirm() {
-    fetch(`${API_BASE_URL}/${deleteBook.id}`, { method: "DELETE" })
-      .then(() => { setDeleteBook(null); fetchBooks(); });
+    const id = deleteBook.id;
+    fetch(`${API_BASE_URL}/${id}`, { method: "DELETE" })
+      .then(res => {
+        if (res.ok) replaceInLists(list => list.filter(b => b.id !== id));
+        setDeleteBook(null);
+      });
   }
 
   async function handleEditSave(updated) {
     const formData = new FormData();
     formData.append("book", new Blob([JSON.stringify(updated)], { type: "application/json" }));
-    await fetch(API_BASE_URL, { method: "PUT", body: formData });
+    const res = await fetch(API_BASE_URL, { method: "PUT", body: formData });
     setEditBook(null);
-    fetchBooks();
+    if (res.ok) {
+      replaceInLists(list => list.map(b => b.id === updated.id ? { ...b, ...updated } : b));
+    } else {
+      fetchBooks();
+    }
   }
 
   return (
@@ -234,10 +275,22 @@ export default function Home() {
         {loading
           ? Array.from({ length: 4 }).map((_, idx) => <BookLoader key={idx} />)
           : books.length
-          ? books.map(book => <BookCard key={book.id} book={book} onEdit={setEditBook} onDelete={setDeleteBook} />)
+          ? books.map(book => <BookCard key={book.id} book={book} onEdit={handleEdit} onDelete={setDeleteBook} />)
           : <div className="text-gray-400 text-lg mt-10">No books found.</div>}
       </div>
 
+      {!loading && nextCursor && books === allBooks && (
+        <div className="flex justify-center mt-8">
+          <button
+            onClick={fetchMoreBooks}
+            disabled={loadingMore}
+            className="px-5 py-2 bg-green-600 text-white rounded-lg font-semibold hover:bg-green-700 transition shadow disabled:opacity-50"
+          >
+            {loadingMore ? "Loading..." : "Load more"}
+          </button>
+        </div>
+      )}
+
       <ConfirmModal open={!!deleteBook} onClose={() => setDeleteBook(null)} onConfirm={handleDeleteConfirm} book={deleteBook || {}} />
       <EditModal open={!!editBook} book={editBook} onSave={handleEditSave} onClose={() => setEditBook(null)} />
     </div>
@@ -0,0 +1,99 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookSummary;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookService;
+import org.springframework.ai.document.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Deterministic synthetic books shared by the JMH benchmarks and the load harness
+final class BenchmarkData {
+
+    private static final String[] GENRES = {"Fiction", "Science Fiction", "Fantasy", "History", "Biography", "Self-Help", "Mystery"};
+    private static final String[] WORDS = {"journey", "empire", "memory", "garden", "silence", "river", "machine",
+            "winter", "letters", "ocean", "shadow", "kingdom", "habit", "mind", "stars", "city", "secret", "light"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Book> books(int count) {
+        Random random = new Random(42);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setId((long) i + 1);
+            book.setTitle(capitalize(words(random, 2 + random.nextInt(3))));
+            book.setAuthor("Author " + (i % 97));
+            book.setDescription(capitalize(words(random, 40 + random.nextInt(40))) + ".");
+            book.setGenre(GENRES[i % GENRES.length]);
+            book.setPageCount(100 + random.nextInt(600));
+            book.setRead(random.nextBoolean());
+            book.setCoverKey(String.format("%064x", random.nextLong() & Long.MAX_VALUE));
+            book.setImageName("cover-" + i + ".png");
+            book.setImageType("image/png");
+            book.setUserEmail("reader" + (i % 10) + "@example.com");
+            book.setVersion(1L);
+            book.setUpdatedAt(Instant.parse("2025-01-01T00:00:00Z"));
+            books.add(book);
+        }
+        return books;
+    }
+
+    static List<BookSummary> summaries(List<Book> books) {
+        return books.stream()
+                .map(book -> new BookSummary(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(),
+                        book.getPageCount(), book.isRead(), book.getCoverKey(), book.getUserEmail()))
+                .toList();
+    }
+
+    // The vector store documents of the books, as the chat retrieval returns them: best score first,
+    // slowly falling off with a step after the first few hits
+    static List<Document> documents(List<Book> books) {
+        List<Document> documents = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            documents.add(Document.builder()
+                    .id(BookService.documentId(book.getId()))
+                    .text(BookService.embeddingContent(book))
+                    .metadata(Map.of("bookId", String.valueOf(book.getId()), "email", book.getUserEmail()))
+                    .score(0.92 - i * 0.01 - (i >= 4 ? 0.1 : 0))
+                    .build());
+        }
+        return documents;
+    }
+
+    // A csv in the layout BookImportService reads
+    static String csv(int count) {
+        StringBuilder csv = new StringBuilder("title,author,description,genre,pageCount,read,userEmail\n");
+        for (Book book : books(count)) {
+            csv.append('"').append(book.getTitle()).append("\",")
+                    .append('"').append(book.getAuthor()).append("\",")
+                    .append('"').append(book.getDescription()).append("\",")
+                    .append(book.getGenre()).append(',')
+                    .append(book.getPageCount()).append(',')
+                    .append(book.isRead()).append(',')
+                    .append(book.getUserEmail()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Serializing book listings: full books (cover by key), summaries (GET /api/books), and books with the
+// cover bytes inline (base64, as the export with includeCovers and the listings before the cover store)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookJsonBenchmark {
+
+    public static class BookWithCover {
+        @JsonUnwrapped
+        public final Book book;
+        public final byte[] imageData;
+
+        BookWithCover(Book book, byte[] imageData) {
+            this.book = book;
+            this.imageData = imageData;
+        }
+    }
+
+    @Param({"50", "500"})
+    private int books;
+
+    @Param({"65536"})
+    private int coverBytes;
+
+    private ObjectMapper objectMapper;
+    private List<Book> bookList;
+    private List<BookSummary> summaries;
+    private List<BookWithCover> booksWithCovers;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        bookList = BenchmarkData.books(books);
+        summaries = BenchmarkData.summaries(bookList);
+
+        byte[] cover = new byte[coverBytes];
+        new Random(7).nextBytes(cover);
+        booksWithCovers = bookList.stream().map(book -> new BookWithCover(book, cover)).toList();
+    }
+
+    @Benchmark
+    public void books() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), bookList);
+    }
+
+    @Benchmark
+    public void summaries() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), summaries);
+    }
+
+    @Benchmark
+    public void booksWithInlineCovers() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), booksWithCovers);
+    }
+}
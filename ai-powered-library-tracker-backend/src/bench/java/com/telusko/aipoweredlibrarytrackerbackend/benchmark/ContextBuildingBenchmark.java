@@ -0,0 +1,80 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.service.ContextAssembler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Building the prompt context from retrieved results with ContextAssembler (chat: deduplicated
+// compact lines, rerank: candidates with ids, both token budgeted) against the former concatenation
+// of the documents' formatted content, and the adaptive top-k cut. The token counts of both context
+// styles are printed once per trial, the size difference is what the model is billed for.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextBuildingBenchmark {
+
+    @Param({"5", "50"})
+    private int results;
+
+    private List<Document> documents;
+    private List<Book> candidates;
+    private ContextAssembler chatAssembler;
+    private ContextAssembler rerankAssembler;
+
+    @Setup
+    public void setup() {
+        candidates = BenchmarkData.books(results);
+        documents = BenchmarkData.documents(candidates);
+
+        TokenCountEstimator tokenizer = new JTokkitTokenCountEstimator(EncodingType.O200K_BASE);
+        chatAssembler = new ContextAssembler(tokenizer, 800, 200);
+        rerankAssembler = new ContextAssembler(tokenizer, 3000, 200);
+
+        System.out.println("\nformatted content: " + tokenizer.estimate(formattedContent())
+                + " tokens, compact: " + chatAssembler.chatContext(candidates).tokens() + " tokens");
+    }
+
+    @Benchmark
+    public String formattedContent() {
+        StringBuilder context = new StringBuilder();
+        for (Document document : documents) {
+            context.append(document.getFormattedContent()).append("\n");
+        }
+        return context.toString();
+    }
+
+    @Benchmark
+    public ContextAssembler.Context chatContext() {
+        return chatAssembler.chatContext(candidates);
+    }
+
+    @Benchmark
+    public ContextAssembler.Context rerankContext() {
+        return rerankAssembler.candidateContext(candidates);
+    }
+
+    @Benchmark
+    public List<Document> adaptiveTopK() {
+        return ContextAssembler.adaptiveTopK(documents, 2, 0.08, 0.15);
+    }
+}
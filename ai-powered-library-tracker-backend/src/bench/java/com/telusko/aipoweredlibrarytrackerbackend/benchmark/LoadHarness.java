@@ -0,0 +1,404 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.AiPoweredLibraryTrackerBackendApplication;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// End-to-end load test of every BookController and ChatBotController endpoint. Starts pgvector in a
+// Testcontainer, the OpenAI stub (see OpenAiStub for its latency settings) and the application on a
+// random port, seeds books through the import endpoint, waits until they are embedded, then drives
+// each endpoint in turn with bench.concurrency clients for bench.warmup + bench.duration and reports
+// throughput, p50, p99 and errors (as a table, and as csv in bench.report).
+//
+// Needs Docker. Run:
+//   ./mvnw -Pbenchmark test-compile exec:java@load -Dbench.concurrency=32 -Dstub.latency.chat=PT1.5S
+//
+// Other settings (system properties): bench.books, bench.warmup, bench.duration, bench.endpoints
+// (comma separated scenario names, default all), bench.report, bench.image
+public class LoadHarness {
+
+    private static final String EMAIL = "reader0@example.com";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    private Book sampleBook;
+    private String importJobId;
+    private String coverJobId;
+
+    private record Scenario(String name, Supplier<HttpRequest> request) {
+    }
+
+    private record Result(String name, long requests, long errors, double seconds, long[] latencies) {
+
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1_000_000.0;
+        }
+    }
+
+    LoadHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int books = Integer.getInteger("bench.books", 2000);
+        int concurrency = Integer.getInteger("bench.concurrency", 16);
+        Duration warmup = Duration.parse(System.getProperty("bench.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("bench.duration", "PT30S"));
+        Set<String> only = System.getProperty("bench.endpoints", "").isBlank()
+                ? Set.of()
+                : Set.of(System.getProperty("bench.endpoints").split(","));
+        Path report = Path.of(System.getProperty("bench.report", "target/load-report.csv"));
+
+        DockerImageName image = DockerImageName.parse(System.getProperty("bench.image", "pgvector/pgvector:pg16"))
+                .asCompatibleSubstituteFor("postgres");
+
+        try (OpenAiStub stub = new OpenAiStub(0);
+             PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(image)) {
+            postgres.start();
+
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(AiPoweredLibraryTrackerBackendApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.docker.compose.enabled=false",
+                            "spring.datasource.url=" + postgres.getJdbcUrl() + "&reWriteBatchedInserts=true",
+                            "spring.datasource.username=" + postgres.getUsername(),
+                            "spring.datasource.password=" + postgres.getPassword(),
+                            "spring.ai.openai.base-url=" + stub.baseUrl(),
+                            "spring.ai.openai.api-key=stub",
+                            "book.voice.transcode=false",
+                            "management.tracing.sampling.probability=0.0")
+                    .run()) {
+
+                String port = app.getEnvironment().getProperty("local.server.port");
+                LoadHarness harness = new LoadHarness("http://localhost:" + port);
+                harness.seed(books);
+
+                List<Result> results = new ArrayList<>();
+                for (Scenario scenario : harness.scenarios()) {
+                    if (!only.isEmpty() && !only.contains(scenario.name())) {
+                        continue;
+                    }
+                    Result result = harness.run(scenario, concurrency, warmup, duration);
+                    print(result);
+                    results.add(result);
+                }
+
+                writeReport(report, results);
+                System.out.println("OpenAI stub served " + stub.requests() + " requests, report written to " + report);
+            }
+        }
+    }
+
+    // A few thousand books for one user (pages, search and chat have something to work with), one book
+    // with a cover, and a cover job; then wait for the embedding worker to catch up
+    private void seed(int books) throws Exception {
+        System.out.println("Seeding " + books + " books...");
+        HttpResponse<String> started = send(importRequest(BenchmarkData.csv(books)));
+        importJobId = objectMapper.readTree(started.body()).path("id").asText();
+        waitFor("import", () -> "COMPLETED".equals(json("/api/books/import/" + importJobId).path("status").asText()));
+
+        Book book = BenchmarkData.books(1).get(0);
+        book.setId(null);
+        book.setVersion(null);
+        book.setCoverKey(null);
+        book.setUserEmail(EMAIL);
+        sampleBook = objectMapper.readValue(send(bookRequest("POST", book, "image")).body(), Book.class);
+
+        JsonNode details = objectMapper.readTree(send(post("/api/books/generate-ai-book-details?title=" + encode("Dune"))).body());
+        coverJobId = details.path("coverJobId").asText();
+
+        waitFor("embeddings", () -> json("/api/books/embedding-lag").path("pending").asLong() == 0);
+    }
+
+    private List<Scenario> scenarios() {
+        String email = "?email=" + encode(EMAIL);
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger refreshed = new AtomicInteger();
+        AtomicInteger deleted = new AtomicInteger();
+        return List.of(
+                new Scenario("list-page", () -> get("/api/books" + email + "&size=20")),
+                new Scenario("changes", () -> get("/api/books/changes" + email)),
+                new Scenario("get-book", () -> get("/api/books/" + sampleBook.getId())),
+                new Scenario("get-books-by-email", () -> get("/api/books/get-books-by-email" + email)),
+                new Scenario("get-books", () -> get("/api/books/get-books")),
+                new Scenario("add-book", () -> bookRequest("POST", newBook(counter.incrementAndGet()), "image")),
+                new Scenario("update-book", () -> {
+                    Book update = copy(sampleBook);
+                    update.setPageCount(100 + counter.incrementAndGet() % 500);
+                    return bookRequest("PUT", update, "imageFile");
+                }),
+                new Scenario("delete-book", () -> {
+                    Long id = createdIds.poll();
+                    return delete("/api/books/" + (id != null ? id : Long.MAX_VALUE));
+                }),
+                new Scenario("text-search", () -> multipart("/api/books/voice-text-search",
+                        List.of(part("query", "space travel adventure"), part("email", EMAIL)))),
+                new Scenario("text-search-rerank", () -> multipart("/api/books/voice-text-search",
+                        List.of(part("query", "space travel adventure"), part("email", EMAIL), part("rerank", "true")))),
+                new Scenario("voice-search", () -> multipart("/api/books/voice-text-search",
+                        List.of(filePart("audio", "query.webm", "audio/webm", randomBytes(32 * 1024)), part("email", EMAIL)))),
+                new Scenario("generate-details", () -> post("/api/books/generate-ai-book-details?title="
+                        + encode("Title " + counter.incrementAndGet()))),
+                new Scenario("generate-details-batch", () -> HttpRequest.newBuilder(uri("/api/books/generate-ai-book-details/batch"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("[\"Dune\",\"Emma\",\"Ulysses\"]"))
+                        .build()),
+                new Scenario("generate-details-stream", () -> get("/api/books/generate-ai-book-details/stream?title="
+                        + encode("Title " + counter.incrementAndGet()))),
+                new Scenario("generate-details-catalog", () -> post("/api/books/generate-ai-book-details?title=" + encode("Dune"))),
+                new Scenario("catalog", () -> get("/api/books/catalog?title=" + encode("Dune"))),
+                new Scenario("catalog-refresh", () -> post("/api/books/catalog/refresh?title="
+                        + encode("Refresh " + refreshed.incrementAndGet()))),
+                // Entries of the refresh scenario; ones whose cover was not finished yet answer 404
+                new Scenario("catalog-delete", () -> delete("/api/books/catalog?title="
+                        + encode("Refresh " + deleted.incrementAndGet()))),
+                new Scenario("cover-job", () -> get("/api/books/cover-jobs/" + coverJobId)),
+                new Scenario("cover-job-stream", () -> get("/api/books/cover-jobs/" + coverJobId + "/stream")),
+                new Scenario("import", () -> importRequest(BenchmarkData.csv(20))),
+                new Scenario("import-status", () -> get("/api/books/import/" + importJobId)),
+                new Scenario("import-resume", () -> post("/api/books/import/" + importJobId + "/resume")),
+                new Scenario("embedding-lag", () -> get("/api/books/embedding-lag")),
+                new Scenario("requeue-dead", () -> post("/api/books/embedding-lag/requeue-dead")),
+                new Scenario("reconcile", () -> post("/api/books/vector-store/reconcile")),
+                new Scenario("export", () -> get("/api/books/export" + email)),
+                new Scenario("export-covers-gzip", () -> get("/api/books/export" + email + "&includeCovers=true&gzip=true")),
+                new Scenario("cover", () -> get("/api/books/" + sampleBook.getId() + "/cover")),
+                new Scenario("cover-by-key", () -> get("/api/books/covers/" + sampleBook.getCoverKey())),
+                new Scenario("chat", () -> get("/api/chat/ask?message=" + encode("What should I read next?") + "&email=" + encode(EMAIL))),
+                new Scenario("chat-stream", () -> get("/api/chat/ask/stream?message=" + encode("What should I read next?") + "&email=" + encode(EMAIL)))
+        );
+    }
+
+    // Closed loop: every client sends its next request as soon as the previous one completed (bodies,
+    // including SSE streams, are read to the end). Requests started during warmup are not counted.
+    private Result run(Scenario scenario, int concurrency, Duration warmup, Duration duration) throws Exception {
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        List<Future<long[]>> clients = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        boolean ok;
+                        try {
+                            HttpResponse<byte[]> response = client.send(scenario.request().get(),
+                                    HttpResponse.BodyHandlers.ofByteArray());
+                            ok = response.statusCode() < 400;
+                            if (ok && scenario.name().equals("add-book")) {
+                                // delete-book removes the books added here, never the seeded ones
+                                createdIds.add(objectMapper.readValue(response.body(), Book.class).getId());
+                            }
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        long latency = System.nanoTime() - now;
+                        if (now >= measureStart) {
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            }
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = latency;
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> future : clients) {
+            long[] latencies = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        double seconds = Math.max(duration.toNanos(), System.nanoTime() - measureStart) / 1e9;
+        return new Result(scenario.name(), all.length, errors.get(), seconds, all);
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%-26s %8d req %8.1f req/s  p50 %8.1f ms  p99 %8.1f ms  errors %d%n",
+                result.name(), result.requests(), result.throughput(),
+                result.percentileMillis(0.50), result.percentileMillis(0.99), result.errors());
+    }
+
+    private static void writeReport(Path report, List<Result> results) throws IOException {
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report))) {
+            out.println("endpoint,requests,errors,throughput,p50_ms,p99_ms");
+            for (Result result : results) {
+                out.printf("%s,%d,%d,%.2f,%.2f,%.2f%n", result.name(), result.requests(), result.errors(),
+                        result.throughput(), result.percentileMillis(0.50), result.percentileMillis(0.99));
+            }
+        }
+    }
+
+    private interface Condition {
+        boolean met() throws Exception;
+    }
+
+    private static void waitFor(String what, Condition condition) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofMinutes(10).toNanos();
+        while (!condition.met()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + what);
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    private Book newBook(int n) {
+        Book book = copy(sampleBook);
+        book.setId(null);
+        book.setVersion(null);
+        book.setTitle("Load test book " + n);
+        book.setUserEmail("load@example.com");
+        return book;
+    }
+
+    private Book copy(Book book) {
+        return objectMapper.convertValue(book, Book.class);
+    }
+
+    private HttpRequest bookRequest(String method, Book book, String imagePart) {
+        try {
+            List<byte[]> parts = List.of(
+                    filePart("book", "book.json", "application/json", objectMapper.writeValueAsBytes(book)),
+                    filePart(imagePart, "cover.png", "image/png", OpenAiStub.coverPng()));
+            return multipart(method, "/api/books", parts);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest importRequest(String csv) {
+        return multipart("/api/books/import", List.of(
+                filePart("file", "books.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)),
+                part("email", EMAIL)));
+    }
+
+    // --- HTTP plumbing ---
+
+    private static final String BOUNDARY = "bench-" + UUID.randomUUID();
+
+    private static byte[] part(String name, String value) {
+        return ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] filePart(String name, String fileName, String contentType, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 256);
+        out.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\""
+                + fileName + "\"\r\nContent-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(content);
+        out.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private HttpRequest multipart(String path, List<byte[]> parts) {
+        return multipart("POST", path, parts);
+    }
+
+    private HttpRequest multipart(String method, String path, List<byte[]> parts) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        parts.forEach(body::writeBytes);
+        body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest post(String path) {
+        return HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(uri(path)).DELETE().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private JsonNode json(String path) throws IOException, InterruptedException {
+        return objectMapper.readTree(send(get(path)).body());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " answered "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
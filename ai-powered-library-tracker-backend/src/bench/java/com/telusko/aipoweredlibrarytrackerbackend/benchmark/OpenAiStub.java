@@ -0,0 +1,283 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for the OpenAI endpoints the app calls, with a fixed latency per endpoint:
+//   POST /v1/chat/completions        rerank prompts get the candidate ids back as a JSON array, the book
+//                                    metadata prompt a book, anything else a short answer; stream=true
+//                                    answers in SSE chunks (stub.latency.chunk apart) ending with usage
+//   POST /v1/embeddings              deterministic unit vectors derived from the input text
+//   POST /v1/images/generations      a small PNG as b64_json
+//   POST /v1/audio/transcriptions    a fixed transcript
+// Latencies are system properties (ISO-8601 durations): stub.latency.chat (before the first byte),
+// stub.latency.chunk, stub.latency.embedding, stub.latency.image, stub.latency.transcription.
+// LoadHarness starts it on a free port; to point a dev app at it run it standalone:
+//   ./mvnw -Pbenchmark test-compile exec:java -Dexec.mainClass=com.telusko.aipoweredlibrarytrackerbackend.benchmark.OpenAiStub -Dstub.port=8089
+// and start the app with spring.ai.openai.base-url=http://localhost:8089.
+public class OpenAiStub implements AutoCloseable {
+
+    private static final Pattern CANDIDATE_ID = Pattern.compile("Id: (\\d+)");
+    private static final int DIMENSIONS = Integer.getInteger("stub.dimensions", 1536);
+    private static final int STREAM_CHUNKS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Duration chatLatency = latency("chat", "PT0.8S");
+    private final Duration chunkLatency = latency("chunk", "PT0.02S");
+    private final Duration embeddingLatency = latency("embedding", "PT0.1S");
+    private final Duration imageLatency = latency("image", "PT3S");
+    private final Duration transcriptionLatency = latency("transcription", "PT0.5S");
+    private final byte[] coverPng = coverPng();
+    private final AtomicLong requests = new AtomicLong();
+
+    public OpenAiStub(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 512);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chat));
+        server.createContext("/v1/embeddings", exchange -> handle(exchange, this::embeddings));
+        server.createContext("/v1/images/generations", exchange -> handle(exchange, this::image));
+        server.createContext("/v1/audio/transcriptions", exchange -> handle(exchange, this::transcription));
+        server.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        OpenAiStub stub = new OpenAiStub(Integer.getInteger("stub.port", 8089));
+        System.out.println("OpenAI stub listening on " + stub.baseUrl());
+        Thread.currentThread().join();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Stub failed on " + exchange.getRequestURI() + ": " + e);
+            throw e;
+        }
+    }
+
+    private void chat(HttpExchange exchange) throws IOException, InterruptedException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        StringBuilder promptText = new StringBuilder();
+        request.path("messages").forEach(message -> promptText.append(message.path("content").asText()).append('\n'));
+        String prompt = promptText.toString();
+        String answer = answer(prompt);
+        int promptTokens = prompt.length() / 4;
+        int completionTokens = answer.length() / 4;
+
+        Thread.sleep(chatLatency);
+
+        if (!request.path("stream").asBoolean()) {
+            ObjectNode response = completion("chat.completion");
+            ObjectNode choice = response.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.put("finish_reason", "stop");
+            choice.putObject("message").put("role", "assistant").put("content", answer);
+            usage(response, promptTokens, completionTokens);
+            json(exchange, response);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int chunkSize = Math.max(1, answer.length() / STREAM_CHUNKS + 1);
+        for (int start = 0; start < answer.length(); start += chunkSize) {
+            if (start > 0) {
+                Thread.sleep(chunkLatency);
+            }
+            ObjectNode chunk = completion("chat.completion.chunk");
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta").put("content", answer.substring(start, Math.min(answer.length(), start + chunkSize)));
+            event(out, chunk);
+        }
+        ObjectNode last = completion("chat.completion.chunk");
+        last.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop").putObject("delta");
+        event(out, last);
+        ObjectNode usage = completion("chat.completion.chunk");
+        usage.putArray("choices");
+        usage(usage, promptTokens, completionTokens);
+        event(out, usage);
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private String answer(String prompt) throws IOException {
+        Matcher candidates = CANDIDATE_ID.matcher(prompt);
+        if (candidates.find()) {
+            // Rerank: keep every other candidate, in the given order
+            ArrayNode books = objectMapper.createArrayNode();
+            int index = 0;
+            do {
+                if (index++ % 2 == 0) {
+                    books.addObject().put("id", Long.parseLong(candidates.group(1)));
+                }
+            } while (candidates.find());
+            return objectMapper.writeValueAsString(books);
+        }
+        if (prompt.contains("\"pageCount\"")) {
+            ObjectNode book = objectMapper.createObjectNode();
+            book.put("title", "Stub Title");
+            book.put("author", "Stub Author");
+            book.put("genre", "Fiction");
+            book.put("description", "A book generated by the OpenAI stub for load testing.");
+            book.put("pageCount", 320);
+            return objectMapper.writeValueAsString(book);
+        }
+        return "Based on your library, you might enjoy the books listed above. "
+                + "They match the themes you asked about and are well reviewed by readers who liked similar titles.";
+    }
+
+    private void embeddings(HttpExchange exchange) throws IOException, InterruptedException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        JsonNode input = request.path("input");
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("object", "list");
+        response.put("model", request.path("model").asText());
+        ArrayNode data = response.putArray("data");
+        int tokens = 0;
+        int index = 0;
+        for (JsonNode text : input.isArray() ? input : objectMapper.createArrayNode().add(input)) {
+            ObjectNode embedding = data.addObject();
+            embedding.put("object", "embedding");
+            embedding.put("index", index++);
+            ArrayNode vector = embedding.putArray("embedding");
+            for (float value : vector(text.asText())) {
+                vector.add(value);
+            }
+            tokens += text.asText().length() / 4;
+        }
+        response.putObject("usage").put("prompt_tokens", tokens).put("total_tokens", tokens);
+
+        Thread.sleep(embeddingLatency);
+        json(exchange, response);
+    }
+
+    private void image(HttpExchange exchange) throws IOException, InterruptedException {
+        exchange.getRequestBody().readAllBytes();
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.putArray("data").addObject().put("b64_json", Base64.getEncoder().encodeToString(coverPng));
+
+        Thread.sleep(imageLatency);
+        json(exchange, response);
+    }
+
+    private void transcription(HttpExchange exchange) throws IOException, InterruptedException {
+        exchange.getRequestBody().readAllBytes();
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("text", "science fiction books about space travel");
+
+        Thread.sleep(transcriptionLatency);
+        json(exchange, response);
+    }
+
+    private ObjectNode completion(String object) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-stub");
+        response.put("object", object);
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", "gpt-4o");
+        return response;
+    }
+
+    private void usage(ObjectNode response, int promptTokens, int completionTokens) {
+        response.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private void json(HttpExchange exchange, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void event(OutputStream out, JsonNode chunk) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    // Same text, same vector, so cached and fresh embeddings agree and similar searches are repeatable
+    private static float[] vector(String text) {
+        Random random = new Random(text.hashCode());
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    static byte[] coverPng() {
+        BufferedImage image = new BufferedImage(256, 384, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(40, 70, 120));
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.WHITE);
+        graphics.drawString("Stub cover", 90, 190);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static Duration latency(String endpoint, String defaultValue) {
+        return Duration.parse(System.getProperty("stub.latency." + endpoint, defaultValue));
+    }
+}
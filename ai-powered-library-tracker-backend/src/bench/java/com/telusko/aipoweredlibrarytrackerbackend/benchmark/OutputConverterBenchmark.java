@@ -0,0 +1,78 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parsing model output with BeanOutputConverter: the rerank answer (List<Book>) and the generated
+// metadata (Book). "create*" builds the converter per call as the services do, which includes
+// generating the JSON schema; getFormat is the schema instruction appended to prompts.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputConverterBenchmark {
+
+    @Param({"10", "50"})
+    private int books;
+
+    private String bookListJson;
+    private String bookJson;
+    private BeanOutputConverter<List<Book>> listConverter;
+    private BeanOutputConverter<Book> bookConverter;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        List<Book> data = BenchmarkData.books(books);
+        bookListJson = objectMapper.writeValueAsString(data);
+        bookJson = objectMapper.writeValueAsString(data.get(0));
+        listConverter = new BeanOutputConverter<>(new ParameterizedTypeReference<>() {
+        });
+        bookConverter = new BeanOutputConverter<>(Book.class);
+    }
+
+    @Benchmark
+    public List<Book> convertBookList() {
+        return listConverter.convert(bookListJson);
+    }
+
+    @Benchmark
+    public List<Book> createAndConvertBookList() {
+        BeanOutputConverter<List<Book>> converter = new BeanOutputConverter<>(new ParameterizedTypeReference<>() {
+        });
+        return converter.convert(bookListJson);
+    }
+
+    @Benchmark
+    public Book convertBook() {
+        return bookConverter.convert(bookJson);
+    }
+
+    @Benchmark
+    public Book createAndConvertBook() {
+        return new BeanOutputConverter<>(Book.class).convert(bookJson);
+    }
+
+    @Benchmark
+    public String format() {
+        return listConverter.getFormat();
+    }
+}
@@ -0,0 +1,64 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.telusko.aipoweredlibrarytrackerbackend.service.ContextAssembler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Rendering the chatbot RAG prompt: a template parsed once (PromptRegistry) vs parsed per request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptRenderingBenchmark {
+
+    @Param({"5", "50"})
+    private int books;
+
+    private String templateText;
+    private PromptTemplate template;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = new ClassPathResource("prompts/chatbot-rag-prompt.st").getInputStream()) {
+            templateText = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        template = PromptTemplate.builder().template(templateText).build();
+        ContextAssembler assembler = new ContextAssembler(new JTokkitTokenCountEstimator(EncodingType.O200K_BASE), 800, 200);
+        variables = Map.of(
+                "userQuery", "books about space travel for a long flight",
+                "context", assembler.chatContext(BenchmarkData.books(books)).text());
+    }
+
+    @Benchmark
+    public Prompt renderParsed() {
+        return template.create(variables);
+    }
+
+    @Benchmark
+    public Prompt parseAndRender() {
+        return PromptTemplate.builder().template(templateText).build().create(variables);
+    }
+}
@@ -0,0 +1,297 @@
+package com.telusko.aipoweredlibrarytrackerbackend.benchmark;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.VectorStorageMode;
+import com.telusko.aipoweredlibrarytrackerbackend.service.VectorIndexLayout;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Offline recall/latency benchmark for the pgvector index settings used by VectorIndexInitializer.
+// Loads a synthetic corpus (uniform random or clustered vectors) into a scratch table, computes the
+// exact top-k by sequential scan, then measures recall@k, p50/p99 latency and index size for every
+// index type, storage mode (full / halfvec / binary / truncated, see VectorIndexLayout) and every
+// ef_search (HNSW) / probes (IVFFlat) value. Note that random vectors are not Matryoshka embeddings,
+// so truncated recall measured here is a lower bound.
+//
+// A standalone program rather than a JMH benchmark (each run builds indexes for minutes), compiled with
+// the other benchmarks by the benchmark profile. Start a local pgvector first (docker compose up), then run:
+//   ./mvnw -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=com.telusko.aipoweredlibrarytrackerbackend.benchmark.VectorIndexBenchmark \
+//       -Dbench.url=jdbc:postgresql://localhost:5432/libraryapp -Dbench.rows=1000000 -Dbench.clusters=100
+//
+// Other settings (system properties): bench.user, bench.password, bench.dimensions, bench.queries, bench.k,
+// bench.index-types, bench.storage-modes, bench.truncated-dimensions, bench.rescore-factor, bench.hnsw.m,
+// bench.hnsw.ef-construction, bench.hnsw.ef-search, bench.ivfflat.lists, bench.ivfflat.probes, bench.seed, bench.reload
+public class VectorIndexBenchmark {
+
+    private static final String TABLE = "bench_vectors";
+
+    private final Connection connection;
+    private final int rows = Integer.getInteger("bench.rows", 1_000_000);
+    private final int dimensions = Integer.getInteger("bench.dimensions", 1536);
+    private final int clusters = Integer.getInteger("bench.clusters", 0);
+    private final int queries = Integer.getInteger("bench.queries", 100);
+    private final int k = Integer.getInteger("bench.k", 10);
+    private final long seed = Long.getLong("bench.seed", 42L);
+
+    private VectorIndexLayout layout;
+
+    public VectorIndexBenchmark(Connection connection) {
+        this.connection = connection;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/libraryapp");
+        String user = System.getProperty("bench.user", "postgres");
+        String password = System.getProperty("bench.password", "0076");
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            new VectorIndexBenchmark(connection).run();
+        }
+    }
+
+    public void run() throws SQLException, IOException {
+        execute("CREATE EXTENSION IF NOT EXISTS vector");
+        if (Boolean.getBoolean("bench.reload") || rowCount() != rows) {
+            load();
+        }
+
+        List<String> queryVectors = new ArrayList<>();
+        Random random = new Random(seed + 1);
+        float[][] centroids = centroids();
+        for (int i = 0; i < queries; i++) {
+            queryVectors.add(VectorIndexLayout.toVectorLiteral(sample(random, centroids)));
+        }
+
+        System.out.printf("%n%,d x %d-d vectors (%s), %d queries, k=%d%n", rows, dimensions,
+                clusters > 0 ? clusters + " clusters" : "uniform", queries, k);
+        System.out.printf("%-8s %-9s %-22s %10s %10s %10s%n", "index", "storage", "setting", "recall@k", "p50 ms", "p99 ms");
+
+        // Ground truth: exact search by sequential scan
+        layout = layout(VectorStorageMode.FULL);
+        dropIndex();
+        List<Set<Long>> exact = new ArrayList<>();
+        long[] exactLatencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            exact.add(search(queryVectors.get(i)));
+            exactLatencies[i] = System.nanoTime() - start;
+        }
+        report("none", "exact scan", 1.0, exactLatencies);
+
+        for (String storageMode : System.getProperty("bench.storage-modes", "FULL,HALFVEC,BINARY").split(",")) {
+            layout = layout(VectorStorageMode.valueOf(storageMode.trim().toUpperCase()));
+            for (String indexType : System.getProperty("bench.index-types", "HNSW,IVFFLAT").split(",")) {
+                benchmarkIndex(indexType, queryVectors, exact);
+            }
+        }
+        dropIndex();
+    }
+
+    private VectorIndexLayout layout(VectorStorageMode mode) {
+        return new VectorIndexLayout(mode, dimensions, Integer.getInteger("bench.truncated-dimensions", 512),
+                Integer.getInteger("bench.rescore-factor", 4));
+    }
+
+    private void benchmarkIndex(String indexType, List<String> queryVectors, List<Set<Long>> exact) throws SQLException {
+        switch (indexType.trim().toUpperCase()) {
+            case "HNSW" -> {
+                buildIndex("hnsw", "m = " + Integer.getInteger("bench.hnsw.m", 16)
+                        + ", ef_construction = " + Integer.getInteger("bench.hnsw.ef-construction", 64));
+                for (String efSearch : System.getProperty("bench.hnsw.ef-search", "10,20,40,80,160,320").split(",")) {
+                    execute("SET hnsw.ef_search = " + Integer.parseInt(efSearch.trim()));
+                    measure("hnsw", "ef_search=" + efSearch.trim(), queryVectors, exact);
+                }
+            }
+            case "IVFFLAT" -> {
+                int lists = Integer.getInteger("bench.ivfflat.lists", Math.max(1, (int) Math.sqrt(rows)));
+                buildIndex("ivfflat", "lists = " + lists);
+                for (String probes : System.getProperty("bench.ivfflat.probes", "1,5,10,20,50").split(",")) {
+                    execute("SET ivfflat.probes = " + Integer.parseInt(probes.trim()));
+                    measure("ivfflat", "lists=" + lists + " probes=" + probes.trim(), queryVectors, exact);
+                }
+            }
+            case "NONE" -> {
+                // Already measured as the exact baseline
+            }
+            default -> throw new IllegalArgumentException("Unknown index type: " + indexType);
+        }
+    }
+
+    private void measure(String index, String setting, List<String> queryVectors, List<Set<Long>> exact) throws SQLException {
+        // Warm up the index pages before timing
+        for (int i = 0; i < Math.min(10, queryVectors.size()); i++) {
+            search(queryVectors.get(i));
+        }
+
+        long[] latencies = new long[queryVectors.size()];
+        double recall = 0;
+        for (int i = 0; i < queryVectors.size(); i++) {
+            long start = System.nanoTime();
+            Set<Long> found = search(queryVectors.get(i));
+            latencies[i] = System.nanoTime() - start;
+
+            found.retainAll(exact.get(i));
+            recall += (double) found.size() / exact.get(i).size();
+        }
+        report(index, setting, recall / queryVectors.size(), latencies);
+    }
+
+    // Same query shape as RescoringPgVectorStore: candidates from the index, exact distance to rank
+    private Set<Long> search(String queryVector) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM (SELECT id, embedding FROM " + TABLE + " ORDER BY " + layout.candidateOrder("embedding")
+                        + " LIMIT ?) c ORDER BY embedding <=> ?::vector LIMIT ?")) {
+            statement.setString(1, queryVector);
+            statement.setInt(2, layout.candidateCount(k));
+            statement.setString(3, queryVector);
+            statement.setInt(4, k);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void report(String index, String setting, double recall, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-8s %-9s %-22s %10.4f %10.2f %10.2f%n", index, layout.mode(), setting, recall,
+                percentile(sorted, 0.50) / 1_000_000.0, percentile(sorted, 0.99) / 1_000_000.0);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private void load() throws SQLException, IOException {
+        System.out.printf("Loading %,d vectors into %s ...%n", rows, TABLE);
+        execute("DROP TABLE IF EXISTS " + TABLE);
+        execute("CREATE TABLE " + TABLE + " (id BIGINT PRIMARY KEY, embedding VECTOR(" + dimensions + "))");
+
+        // COPY streams the generated rows, nothing is held in memory
+        long start = System.currentTimeMillis();
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        copyManager.copyIn("COPY " + TABLE + " (id, embedding) FROM STDIN", new CorpusReader());
+        execute("ANALYZE " + TABLE);
+        System.out.printf("Loaded in %,d ms%n", System.currentTimeMillis() - start);
+    }
+
+    private void buildIndex(String method, String options) throws SQLException {
+        dropIndex();
+        execute("SET maintenance_work_mem = '" + System.getProperty("bench.maintenance-work-mem", "2GB") + "'");
+        long start = System.currentTimeMillis();
+        execute("CREATE INDEX bench_vectors_embedding_idx ON " + TABLE
+                + " USING " + method + " (" + layout.indexKey("embedding") + ") WITH (" + options + ")");
+        long buildMillis = System.currentTimeMillis() - start;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_size_pretty(pg_relation_size('bench_vectors_embedding_idx'))")) {
+            rs.next();
+            System.out.printf("-- built %s %s (%s) in %,d ms, index size %s%n", method, layout.mode(), options, buildMillis, rs.getString(1));
+        }
+    }
+
+    private void dropIndex() throws SQLException {
+        execute("DROP INDEX IF EXISTS bench_vectors_embedding_idx");
+    }
+
+    private long rowCount() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT to_regclass('" + TABLE + "') IS NOT NULL")) {
+            rs.next();
+            if (!rs.getBoolean(1)) {
+                return -1;
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT count(*) FROM " + TABLE)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private float[][] centroids() {
+        Random random = new Random(seed);
+        float[][] centroids = new float[clusters][];
+        for (int i = 0; i < clusters; i++) {
+            centroids[i] = uniform(random);
+        }
+        return centroids;
+    }
+
+    // Uniform in [-1, 1], or a centroid plus gaussian noise for clustered corpora
+    private float[] sample(Random random, float[][] centroids) {
+        if (centroids.length == 0) {
+            return uniform(random);
+        }
+        float[] centroid = centroids[random.nextInt(centroids.length)];
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = centroid[d] + (float) (random.nextGaussian() * 0.1);
+        }
+        return vector;
+    }
+
+    private float[] uniform(Random random) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    // Generates the COPY text rows ("id\t[v1,v2,...]\n") lazily
+    private class CorpusReader extends Reader {
+
+        private final Random random = new Random(seed + 2);
+        private final float[][] centroids = centroids();
+        private String current = "";
+        private int position;
+        private long nextId = 1;
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == current.length()) {
+                if (nextId > rows) {
+                    return -1;
+                }
+                current = nextId + "\t" + VectorIndexLayout.toVectorLiteral(sample(random, centroids)) + "\n";
+                position = 0;
+                nextId++;
+            }
+            int count = Math.min(length, current.length() - position);
+            current.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import com.telusko.aipoweredlibrarytrackerbackend.service.AiCallGuard;
+import com.telusko.aipoweredlibrarytrackerbackend.service.GuardedChatModel;
+import com.telusko.aipoweredlibrarytrackerbackend.service.GuardedImageModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.image.ImageModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// Guarded OpenAI models (bulkhead, circuit breaker, time limit per model type, see AiCallGuard).
+// Primary, so the ChatClient builder and every ImageModel consumer get the guarded ones.
+// The embedding model is guarded in VectorStoreConfig, underneath its cache.
+@Configuration
+public class AiResilienceConfig {
+
+    @Bean
+    @Primary
+    public ChatModel guardedChatModel(@Qualifier("openAiChatModel") ChatModel openAiChatModel, AiCallGuard guard) {
+        return new GuardedChatModel(openAiChatModel, guard);
+    }
+
+    @Bean
+    @Primary
+    public ImageModel guardedImageModel(@Qualifier("openAiImageModel") ImageModel openAiImageModel, AiCallGuard guard) {
+        return new GuardedImageModel(openAiImageModel, guard);
+    }
+}
@@ -0,0 +1,74 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Change tracking for delta sync (GET /api/books/changes), done by triggers so JPA writes, bulk imports
+// and plain SQL updates are all covered:
+// - every insert and every update of a visible column stamps the row with the writing transaction id
+//   (change_xid) and updated_at
+// - a delete, or a move to another user, leaves a tombstone in book_tombstone (schema.sql)
+// Embedding hash updates don't touch visible columns and therefore don't show up as changes.
+@Component
+@DependsOn("entityManagerFactory")
+public class BookChangeTrackingInitializer {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("ALTER TABLE book ADD COLUMN IF NOT EXISTS change_xid BIGINT");
+        jdbcTemplate.execute("ALTER TABLE book ALTER COLUMN updated_at SET DEFAULT now()");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS book_change_xid_idx ON book (change_xid)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS book_user_email_change_xid_idx ON book (user_email, change_xid)");
+
+        // Rows written before change tracking existed
+        jdbcTemplate.update("""
+                UPDATE book SET change_xid = pg_current_xact_id()::text::bigint, updated_at = coalesce(updated_at, now()),
+                                version = coalesce(version, 0)
+                WHERE change_xid IS NULL OR version IS NULL
+                """);
+
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION book_track_change() RETURNS trigger AS $$
+                BEGIN
+                    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.user_email IS DISTINCT FROM NEW.user_email) THEN
+                        INSERT INTO book_tombstone (book_id, user_email, change_xid)
+                        VALUES (OLD.id, coalesce(OLD.user_email, ''), pg_current_xact_id()::text::bigint)
+                        ON CONFLICT (book_id, user_email)
+                        DO UPDATE SET change_xid = EXCLUDED.change_xid, deleted_at = now();
+                    END IF;
+                    IF TG_OP = 'DELETE' THEN
+                        RETURN OLD;
+                    END IF;
+                    NEW.change_xid := pg_current_xact_id()::text::bigint;
+                    NEW.updated_at := now();
+                    RETURN NEW;
+                END
+                $$ LANGUAGE plpgsql
+                """);
+
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE TRIGGER book_track_insert BEFORE INSERT ON book
+                FOR EACH ROW EXECUTE FUNCTION book_track_change()
+                """);
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE TRIGGER book_track_update BEFORE UPDATE ON book
+                FOR EACH ROW
+                WHEN ((OLD.title, OLD.author, OLD.description, OLD.genre, OLD.page_count, OLD.read, OLD.user_email,
+                       OLD.cover_key, OLD.image_name, OLD.image_type)
+                      IS DISTINCT FROM
+                      (NEW.title, NEW.author, NEW.description, NEW.genre, NEW.page_count, NEW.read, NEW.user_email,
+                       NEW.cover_key, NEW.image_name, NEW.image_type))
+                EXECUTE FUNCTION book_track_change()
+                """);
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE TRIGGER book_track_delete AFTER DELETE ON book
+                FOR EACH ROW EXECUTE FUNCTION book_track_change()
+                """);
+    }
+}
@@ -0,0 +1,32 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Full-text side of the hybrid search. The book table is created by Hibernate, so the generated
+// tsvector column and its GIN index are added here once the table exists instead of in schema.sql.
+// Title and author weigh more than genre and description when ranking.
+@Component
+@DependsOn("entityManagerFactory")
+public class BookSearchIndexInitializer {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("""
+                ALTER TABLE book ADD COLUMN IF NOT EXISTS search_vector tsvector
+                GENERATED ALWAYS AS (
+                    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('english', coalesce(author, '')), 'A') ||
+                    setweight(to_tsvector('english', coalesce(genre, '')), 'B') ||
+                    setweight(to_tsvector('english', coalesce(description, '')), 'C')
+                ) STORED
+                """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS book_search_vector_idx ON book USING GIN (search_vector)");
+    }
+}
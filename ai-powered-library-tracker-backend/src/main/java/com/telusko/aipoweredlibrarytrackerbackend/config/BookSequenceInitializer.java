@@ -0,0 +1,41 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Component;
+
+// Book ids used to come from an IDENTITY column. Once Hibernate has created book_seq,
+// move it past the highest existing id so sequence generated ids never collide with old rows.
+@Component
+@DependsOn("entityManagerFactory")
+public class BookSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSequenceInitializer.class);
+
+    @Autowired
+    private JdbcClient jdbcClient;
+
+    @PostConstruct
+    public void init() {
+        Long maxId = jdbcClient.sql("SELECT COALESCE(MAX(id), 0) FROM book")
+                .query(Long.class)
+                .single();
+
+        Long lastValue = jdbcClient.sql("SELECT last_value FROM book_seq")
+                .query(Long.class)
+                .single();
+
+        // Sequence ids are always <= last_value, so the next block (last_value + 1 ..) is safe once last_value >= max(id)
+        if (lastValue < maxId) {
+            jdbcClient.sql("SELECT setval('book_seq', :value)")
+                    .param("value", maxId)
+                    .query(Long.class)
+                    .single();
+            log.info("book_seq moved past existing book ids to {}", maxId);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookCacheService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.CoverStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.util.List;
+
+// One-time background migration of the legacy inline book.cover_image column into the cover store.
+// Rows are moved in small batches; each migrated row gets a cover_key and its cover_image is cleared,
+// so the migration is safe to interrupt and simply resumes on the next startup.
+@Component
+public class CoverMigrationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverMigrationRunner.class);
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CoverStorageService coverStorageService;
+
+    @Autowired
+    private BookCacheService bookCacheService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        String columnType = legacyColumnType();
+
+        // Fresh schema without the old column, nothing to migrate
+        if (columnType == null) {
+            return;
+        }
+
+        Thread.ofVirtual()
+                .name("cover-migration")
+                .start(() -> migrate("oid".equals(columnType)));
+    }
+
+    private String legacyColumnType() {
+        List<String> types = jdbcTemplate.queryForList("""
+                SELECT data_type FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = 'book' AND column_name = 'cover_image'
+                """, String.class);
+        return types.isEmpty() ? null : types.get(0);
+    }
+
+    private void migrate(boolean largeObject) {
+        int migrated = 0;
+        try {
+            while (true) {
+                Integer count = transactionTemplate.execute(status -> migrateBatch(largeObject));
+                if (count == null || count == 0) {
+                    break;
+                }
+                migrated += count;
+
+                // Cached books still carry the old (empty) cover key
+                bookCacheService.evictAll();
+            }
+            if (migrated > 0) {
+                log.info("Cover migration finished, moved {} covers to the cover store", migrated);
+            }
+        } catch (Exception e) {
+            log.warn("Cover migration stopped after {} covers", migrated, e);
+        }
+    }
+
+    // Runs inside a transaction: large objects (oid) can only be read with auto-commit disabled
+    private int migrateBatch(boolean largeObject) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM book WHERE cover_image IS NOT NULL ORDER BY id LIMIT ?",
+                Long.class, BATCH_SIZE);
+
+        for (Long id : ids) {
+            String coverKey = jdbcTemplate.query("SELECT cover_image FROM book WHERE id = ?", rs -> {
+                rs.next();
+                try {
+                    if (largeObject) {
+                        Blob blob = rs.getBlob(1);
+                        try (InputStream in = blob.getBinaryStream()) {
+                            return coverStorageService.store(in);
+                        }
+                    }
+                    try (InputStream in = rs.getBinaryStream(1)) {
+                        return coverStorageService.store(in);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, id);
+
+            if (largeObject) {
+                jdbcTemplate.queryForList("SELECT lo_unlink(cover_image) FROM book WHERE id = ?", id);
+            }
+            jdbcTemplate.update("UPDATE book SET cover_key = ?, cover_image = NULL WHERE id = ?", coverKey, id);
+        }
+
+        return ids.size();
+    }
+}
@@ -1,6 +1,8 @@
 package com.telusko.aipoweredlibrarytrackerbackend.config;
 
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Component;
@@ -8,6 +10,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class PGVectorInitializer {
 
+    private static final Logger log = LoggerFactory.getLogger(PGVectorInitializer.class);
+
     @Autowired
     private JdbcClient jdbcClient;
 
@@ -18,11 +22,11 @@ public class PGVectorInitializer {
                 .query(Integer.class)
                 .single();
 
-        System.out.println("No. of vectors in PGVector: " + count);
+        log.info("Vectors in pgvector: {}", count);
 
         // If no vectors are found, notify that embedding will happen on product insertion
         if (count == 0) {
-            System.out.println("Vector Store is empty! No need to load manually. Product data will be embedded when inserted.");
+            log.info("Vector store is empty, books are embedded as they are added");
         }
     }
 }
@@ -0,0 +1,168 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import jakarta.annotation.PostConstruct;
+import com.telusko.aipoweredlibrarytrackerbackend.service.VectorIndexLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Owns the ANN index on vector_store.embedding so its type and build parameters come from
+// book.vector.* properties. When the existing index does not match the configuration it is rebuilt
+// with CREATE INDEX CONCURRENTLY in the background. The new index is built next to the old one and
+// swapped in afterwards, so searches keep their index during a rebuild (e.g. a storage mode change).
+// Query time parameters (hnsw.ef_search, ivfflat.probes) are set per connection, see application.properties.
+@Component
+@ConditionalOnProperty(name = "book.vector.store", havingValue = "pgvector", matchIfMissing = true)
+@DependsOn("entityManagerFactory")
+public class VectorIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexInitializer.class);
+
+    private static final String INDEX_NAME = "vector_store_embedding_idx";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VectorIndexLayout vectorIndexLayout;
+
+    @Value("${book.vector.dimensions:1536}")
+    private int dimensions;
+
+    @Value("${book.vector.index-type:HNSW}")
+    private PgIndexType indexType;
+
+    @Value("${book.vector.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${book.vector.hnsw.ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${book.vector.ivfflat.lists:100}")
+    private int ivfflatLists;
+
+    // Fail fast instead of on the first insert when the column was created for another model
+    @PostConstruct
+    public void checkDimensions() {
+        List<String> types = jdbcTemplate.queryForList("""
+                SELECT format_type(a.atttypid, a.atttypmod) FROM pg_attribute a
+                WHERE a.attrelid = 'vector_store'::regclass AND a.attname = 'embedding'
+                """, String.class);
+        String expected = "vector(" + dimensions + ")";
+        if (!types.isEmpty() && !expected.equals(types.get(0))) {
+            throw new IllegalStateException("vector_store.embedding is " + types.get(0) + " but book.vector.dimensions="
+                    + dimensions + ". Re-create the vector store for the new embedding model.");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexInBackground() {
+        Thread.ofVirtual().name("vector-index").start(() -> {
+            try {
+                ensureIndex();
+            } catch (Exception e) {
+                log.error("Vector index maintenance failed", e);
+            }
+        });
+    }
+
+    private void ensureIndex() {
+        // Index an earlier PgVectorStore.initializeSchema created next to ours
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS spring_ai_vector_index");
+
+        Map<String, String> expected = expectedOptions();
+        List<Map<String, Object>> existing = jdbcTemplate.queryForList("""
+                SELECT am.amname AS method, array_to_string(c.reloptions, ',') AS options, i.indisvalid AS valid,
+                       pg_get_indexdef(c.oid) AS definition
+                FROM pg_class c
+                JOIN pg_am am ON am.oid = c.relam
+                JOIN pg_index i ON i.indexrelid = c.oid
+                WHERE c.relname = ?
+                """, INDEX_NAME);
+
+        if (!existing.isEmpty()) {
+            Map<String, Object> index = existing.get(0);
+            boolean matches = Boolean.TRUE.equals(index.get("valid"))
+                    && indexType != PgIndexType.NONE
+                    && indexType.name().equalsIgnoreCase((String) index.get("method"))
+                    && ((String) index.get("definition")).contains(vectorIndexLayout.indexSignature())
+                    && expected.equals(withDefaults(parseOptions((String) index.get("options"))));
+            if (matches) {
+                return;
+            }
+            log.info("Replacing vector index {} ({}), it does not match the configuration", INDEX_NAME, index.get("definition"));
+        }
+
+        if (indexType == PgIndexType.NONE) {
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + INDEX_NAME);
+            return;
+        }
+
+        String with = String.join(", ", expected.entrySet().stream()
+                .map(option -> option.getKey() + " = " + option.getValue())
+                .toList());
+        long start = System.currentTimeMillis();
+        String building = INDEX_NAME + "_new";
+        log.info("Building {} vector index ({}) with ({})", indexType, vectorIndexLayout.mode(), with);
+
+        // Leftover of an interrupted build is INVALID and has to go first
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + building);
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY " + building
+                + " ON vector_store USING " + indexType.name().toLowerCase()
+                + " (" + vectorIndexLayout.indexKey("embedding") + ") WITH (" + with + ")");
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + INDEX_NAME);
+        jdbcTemplate.execute("ALTER INDEX " + building + " RENAME TO " + INDEX_NAME);
+
+        String size = jdbcTemplate.queryForObject("SELECT pg_size_pretty(pg_relation_size(?::regclass))", String.class, INDEX_NAME);
+        log.info("Vector index built in {} ms, size {}", System.currentTimeMillis() - start, size);
+    }
+
+    private Map<String, String> expectedOptions() {
+        Map<String, String> options = new HashMap<>();
+        if (indexType == PgIndexType.HNSW) {
+            options.put("m", String.valueOf(hnswM));
+            options.put("ef_construction", String.valueOf(hnswEfConstruction));
+        } else if (indexType == PgIndexType.IVFFLAT) {
+            options.put("lists", String.valueOf(ivfflatLists));
+        }
+        return options;
+    }
+
+    // An index created without WITH (...) has no reloptions but uses the pgvector defaults
+    private Map<String, String> withDefaults(Map<String, String> options) {
+        Map<String, String> effective = new HashMap<>();
+        if (indexType == PgIndexType.HNSW) {
+            effective.put("m", options.getOrDefault("m", "16"));
+            effective.put("ef_construction", options.getOrDefault("ef_construction", "64"));
+        } else if (indexType == PgIndexType.IVFFLAT) {
+            effective.put("lists", options.getOrDefault("lists", "100"));
+        }
+        return effective;
+    }
+
+    private Map<String, String> parseOptions(String options) {
+        Map<String, String> parsed = new HashMap<>();
+        if (options == null || options.isBlank()) {
+            return parsed;
+        }
+        for (String option : options.split(",")) {
+            String[] pair = option.split("=", 2);
+            if (pair.length == 2) {
+                parsed.put(pair[0].trim(), pair[1].trim());
+            }
+        }
+        return parsed;
+    }
+}
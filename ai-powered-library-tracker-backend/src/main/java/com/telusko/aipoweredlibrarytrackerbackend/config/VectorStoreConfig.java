@@ -1,31 +1,137 @@
 package com.telusko.aipoweredlibrarytrackerbackend.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.model.VectorStorageMode;
+import com.telusko.aipoweredlibrarytrackerbackend.service.AiCallGuard;
+import com.telusko.aipoweredlibrarytrackerbackend.service.CachingEmbeddingModel;
+import com.telusko.aipoweredlibrarytrackerbackend.service.GuardedEmbeddingModel;
+import com.telusko.aipoweredlibrarytrackerbackend.service.LocalVectorStore;
+import com.telusko.aipoweredlibrarytrackerbackend.service.RescoringPgVectorStore;
+import com.telusko.aipoweredlibrarytrackerbackend.service.VectorIndexLayout;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.transformers.TransformersEmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 import static org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgDistanceType.COSINE_DISTANCE;
-import static org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType.HNSW;
+import static org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType.NONE;
 
 
+// Embedding model: book.embedding.provider=openai (default) or onnx (sentence-transformer run in-process on CPU).
+// Vector store: book.vector.store=pgvector (default) or local (Lucene HNSW index in book.vector.local.directory).
+// onnx + local needs no network for embedding and search.
 @Configuration
 public class VectorStoreConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(VectorStoreConfig.class);
+
+    // ONNX sentence-transformer (all-MiniLM-L6-v2, 384 dimensions, unless other model/tokenizer URIs are set).
+    // Use file: URIs for fully offline startup, otherwise the files are downloaded once into the cache directory.
+    @Bean
+    @ConditionalOnProperty(name = "book.embedding.provider", havingValue = "onnx")
+    public TransformersEmbeddingModel onnxEmbeddingModel(@Value("${book.embedding.onnx.model-uri:}") String modelUri,
+                                                         @Value("${book.embedding.onnx.tokenizer-uri:}") String tokenizerUri,
+                                                         @Value("${book.embedding.onnx.cache-directory:data/onnx}") String cacheDirectory) throws Exception {
+        TransformersEmbeddingModel model = new TransformersEmbeddingModel();
+        if (StringUtils.hasText(modelUri)) {
+            model.setModelResource(modelUri);
+        }
+        if (StringUtils.hasText(tokenizerUri)) {
+            model.setTokenizerResource(tokenizerUri);
+        }
+        model.setResourceCacheDirectory(Paths.get(cacheDirectory).toAbsolutePath().toString());
+        model.afterPropertiesSet();
+        return model;
+    }
+
+    // Wrap the selected embedding model with a memory + Postgres cache; primary so every
+    // EmbeddingModel consumer (including the vector store) gets the cached one.
+    // OpenAI misses additionally go through the embedding bulkhead / breaker / time limit.
+    @Bean
+    @Primary
+    public EmbeddingModel cachingEmbeddingModel(@Qualifier("openAiEmbeddingModel") EmbeddingModel openAiEmbeddingModel,
+                                                ObjectProvider<TransformersEmbeddingModel> onnxEmbeddingModel,
+                                                JdbcTemplate jdbcTemplate,
+                                                MeterRegistry meterRegistry,
+                                                AiCallGuard aiCallGuard,
+                                                @Value("${spring.ai.openai.embedding.options.model}") String openAiModelName,
+                                                @Value("${book.embedding.onnx.model-uri:all-MiniLM-L6-v2}") String onnxModelName,
+                                                @Value("${book.embedding.cache.max-memory-entries:10000}") int maxMemoryEntries) {
+        TransformersEmbeddingModel onnx = onnxEmbeddingModel.getIfAvailable();
+        if (onnx != null) {
+            return new CachingEmbeddingModel(onnx, jdbcTemplate, meterRegistry, "onnx:" + onnxModelName, maxMemoryEntries);
+        }
+        return new CachingEmbeddingModel(new GuardedEmbeddingModel(openAiEmbeddingModel, aiCallGuard),
+                jdbcTemplate, meterRegistry, openAiModelName, maxMemoryEntries);
+    }
+
+    // How embeddings are represented in the pgvector index (full, halfvec, binary, truncated)
+    @Bean
+    public VectorIndexLayout vectorIndexLayout(@Value("${book.vector.storage-mode:FULL}") VectorStorageMode mode,
+                                               @Value("${book.vector.dimensions:1536}") int dimensions,
+                                               @Value("${book.vector.truncated-dimensions:512}") int truncatedDimensions,
+                                               @Value("${book.vector.rescore-factor:4}") int rescoreFactor) {
+        return new VectorIndexLayout(mode, dimensions, truncatedDimensions, rescoreFactor);
+    }
 
-    // Configure and provide a VectorStore bean using PGVector
+    // Configure and provide a VectorStore bean using PGVector; with a reduced storage mode searches
+    // go through the quantized index and are re-scored with the full vectors
     @Bean
-    public VectorStore vectorStore(JdbcTemplate  jdbcTemplate, EmbeddingModel embeddingModel) {
-        return PgVectorStore.builder(jdbcTemplate, embeddingModel)
-                .dimensions(1536)                    // Optional: defaults to model dimensions or 1536
+    @ConditionalOnProperty(name = "book.vector.store", havingValue = "pgvector", matchIfMissing = true)
+    public VectorStore vectorStore(JdbcTemplate  jdbcTemplate, EmbeddingModel embeddingModel, ObjectMapper objectMapper,
+                                   VectorIndexLayout vectorIndexLayout,
+                                   @Value("${book.vector.dimensions:1536}") int dimensions) {
+        PgVectorStore pgVectorStore = PgVectorStore.builder(jdbcTemplate, embeddingModel)
+                .dimensions(dimensions)              // Must match the embedding model, checked by VectorIndexInitializer
                 .distanceType(COSINE_DISTANCE)       // Optional: defaults to COSINE_DISTANCE
-                .indexType(HNSW)                     // Optional: defaults to HNSW
+                .indexType(NONE)                     // The index is built and tuned by VectorIndexInitializer
                 .initializeSchema(true)              // Optional: defaults to false
                 .schemaName("public")                // Optional: defaults to "public"
                 .vectorTableName("vector_store")     // Optional: defaults to "vector_store"
                 .maxDocumentBatchSize(10000)         // Optional: defaults to 10000
+                .batchingStrategy(new TokenCountBatchingStrategy()) // Split bulk adds into embedding requests that fit the model's token limit
                 .build();
+
+        if (vectorIndexLayout.mode() == VectorStorageMode.FULL) {
+            return pgVectorStore;
+        }
+        return new RescoringPgVectorStore(pgVectorStore, jdbcTemplate, embeddingModel, objectMapper, vectorIndexLayout);
+    }
+
+    // In-JVM vector store, memory-mapped from book.vector.local.directory
+    @Bean(name = "vectorStore")
+    @ConditionalOnProperty(name = "book.vector.store", havingValue = "local")
+    @DependsOn("entityManagerFactory")
+    public LocalVectorStore localVectorStore(EmbeddingModel embeddingModel, ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+                                             @Value("${book.vector.local.directory:data/vector-index}") String directory,
+                                             @Value("${book.vector.hnsw.m:16}") int m,
+                                             @Value("${book.vector.hnsw.ef-construction:64}") int efConstruction) throws IOException {
+        LocalVectorStore store = new LocalVectorStore(embeddingModel, objectMapper, Paths.get(directory).toAbsolutePath(), m, efConstruction);
+
+        // A new (or wiped) index: forget the embedding hashes so reconciliation re-embeds every book into it
+        if (store.count() == 0) {
+            int reset = jdbcTemplate.update("UPDATE book SET embedding_hash = NULL WHERE embedding_hash IS NOT NULL");
+            if (reset > 0) {
+                log.info("Local vector index is empty, {} books will be re-embedded", reset);
+            }
+        }
+        return store;
     }
 }
@@ -0,0 +1,66 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.telusko.aipoweredlibrarytrackerbackend.service.VoiceTranscriptionService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Configuration
+public class VoiceSearchConfig {
+
+    // Request attribute with the System.nanoTime() the request headers arrived, so the upload stage
+    // of the voice search timings includes receiving the body
+    public static final String START_NANOS = "voiceSearch.startNanos";
+
+    // Allowance for the form fields and multipart framing around the audio
+    private static final long MULTIPART_OVERHEAD = 64 * 1024;
+
+    @Value("${book.voice.max-size:10MB}")
+    private DataSize maxSize;
+
+    @Value("${book.voice.transcript-cache.spec:maximumSize=2000,expireAfterAccess=7d,recordStats}")
+    private String transcriptCacheSpec;
+
+    // Transcripts don't go stale like the book read caches (spring.cache.caffeine.spec, 10 minutes):
+    // a recording always has the same text, so they get their own size bound and a much longer life
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> transcriptCacheCustomizer() {
+        return cacheManager -> cacheManager.registerCustomCache(VoiceTranscriptionService.TRANSCRIPTS,
+                Caffeine.from(transcriptCacheSpec).build());
+    }
+
+    // Runs before the multipart body is read: a request whose declared length is already over the voice
+    // limit is refused without receiving it. The global multipart limit stays high for bulk imports.
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> voiceUploadLimitFilter() {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                request.setAttribute(START_NANOS, System.nanoTime());
+                if (request.getContentLengthLong() > maxSize.toBytes() + MULTIPART_OVERHEAD) {
+                    response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Audio is larger than " + maxSize);
+                    return;
+                }
+                chain.doFilter(request, response);
+            }
+        };
+
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/books/voice-text-search");
+        return registration;
+    }
+}
@@ -1,16 +1,56 @@
 package com.telusko.aipoweredlibrarytrackerbackend.controller;
 
+import com.telusko.aipoweredlibrarytrackerbackend.config.VoiceSearchConfig;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AudioRejectedException;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.InvalidImageException;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.ResourceNotFoundException;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.SyncTokenExpiredException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiBookDetails;
 import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookChanges;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookPage;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CatalogBook;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CoverJob;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CoverSize;
+import com.telusko.aipoweredlibrarytrackerbackend.model.EmbeddingLag;
+import com.telusko.aipoweredlibrarytrackerbackend.model.ImportJob;
+import com.telusko.aipoweredlibrarytrackerbackend.model.VectorReconcileResult;
+import com.telusko.aipoweredlibrarytrackerbackend.service.AiMetrics;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookCatalogService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookEnrichmentService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookExportService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookImportService;
 import com.telusko.aipoweredlibrarytrackerbackend.service.BookService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookSyncService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.CoverImageService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.CoverStorageService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.EmbeddingOutboxService;
+import com.telusko.aipoweredlibrarytrackerbackend.service.StageTimer;
+import com.telusko.aipoweredlibrarytrackerbackend.service.VectorStoreMaintenanceService;
 import io.micrometer.context.Nullable;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/books")
@@ -19,19 +59,89 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private CoverStorageService coverStorageService;
+
+    @Autowired
+    private CoverImageService coverImageService;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private EmbeddingOutboxService embeddingOutboxService;
+
+    @Autowired
+    private VectorStoreMaintenanceService vectorStoreMaintenanceService;
+
+    @Autowired
+    private BookEnrichmentService bookEnrichmentService;
+
+    @Autowired
+    private BookCatalogService bookCatalogService;
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private AiMetrics aiMetrics;
+
     @PostMapping
     public ResponseEntity<Book> addBook(
             @RequestPart Book book,
-            @RequestPart MultipartFile image
-    ) throws IOException {
+            @RequestPart(required = false) MultipartFile image
+    ) throws IOException, InvalidImageException {
         Book saved = bookService.addBook(book, image);
         return ResponseEntity.ok(saved);
     }
 
+    // Paginated listing: GET /api/books?email=&after=<nextCursor>&size=
+    // Listings are revalidated with If-None-Match on every use (no-cache); unchanged ones answer 304
+    // from the listing ETag (see BookListingVersion) without loading or serializing the books
+    @GetMapping
+    public ResponseEntity<BookPage> getBookPage(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(bookService.listingEtag(email))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(bookService.getBookPage(email, after, size));
+    }
+
+    // Delta sync: GET /api/books/changes?since=<token>&email= returns books changed and deleted since the token.
+    // Without since it returns everything plus a first token; 410 means the token expired, sync again without it.
+    @GetMapping("/changes")
+    public ResponseEntity<BookChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String email
+    ) throws SyncTokenExpiredException {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(bookSyncService.getChanges(since, email));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Book> getBook(@PathVariable Long id) throws ResourceNotFoundException {
+        return ResponseEntity.ok(bookService.getBook(id));
+    }
+
     @GetMapping("/get-books-by-email")
-    public ResponseEntity<List<Book>> getBooks(@RequestParam String email) {
+    public ResponseEntity<List<Book>> getBooks(@RequestParam String email, WebRequest request) {
+        if (request.checkNotModified(bookService.listingEtag(email))) {
+            return null;
+        }
         List<Book> books = bookService.getAllBooks(email);
-        return ResponseEntity.ok(books);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(books);
     }
 
 //    @GetMapping("/generate-description")
@@ -62,10 +172,17 @@ public class BookController {
     @PostMapping("/voice-text-search")
     public ResponseEntity<List<Book>> searchByVoice(
             @RequestParam(value = "audio",required = false) MultipartFile audio,
-            @RequestParam(value = "query",required = false) String query
-    ) {
-        List<Book> books = bookService.searchByVoiceOrText(audio,query);
-        return ResponseEntity.ok(books);
+            @RequestParam(value = "query",required = false) String query,
+            @RequestParam(value = "email",required = false) String email,
+            @RequestParam(value = "rerank",required = false) Boolean rerank,
+            @RequestAttribute(name = VoiceSearchConfig.START_NANOS, required = false) Long startNanos
+    ) throws AudioRejectedException {
+        // Per-stage timings go back as Server-Timing, visible in the browser's network panel
+        StageTimer timer = aiMetrics.start("search", startNanos != null ? startNanos : System.nanoTime());
+        List<Book> books = bookService.searchByVoiceOrText(audio,query,email,rerank,timer);
+        return ResponseEntity.ok()
+                .header("Server-Timing", timer.serverTiming())
+                .body(books);
 
     }
 
@@ -75,20 +192,214 @@ public class BookController {
         try {
             updatedBook = bookService.updateBook(book, imageFile);
             return new ResponseEntity<>("Updated", HttpStatus.OK);
+        } catch (InvalidImageException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Returns the metadata right away; the cover is generated by the returned cover job
     @PostMapping("/generate-ai-book-details")
-    public ResponseEntity<Book> generateBookDetails(@RequestParam String title) {
-        Book book = bookService.generateCompleteBookDetails(title);
-        return ResponseEntity.ok(book);
+    public ResponseEntity<AiBookDetails> generateBookDetails(@RequestParam String title) {
+        return ResponseEntity.ok(bookEnrichmentService.generateDetails(title));
+    }
+
+    // Enrich several titles concurrently (bounded by book.ai.*.max-concurrency)
+    @PostMapping("/generate-ai-book-details/batch")
+    public ResponseEntity<List<AiBookDetails>> generateBookDetailsBatch(@RequestBody List<String> titles) {
+        return ResponseEntity.ok(bookEnrichmentService.generateDetailsBatch(titles));
+    }
+
+    // Server-Sent Events: "metadata" as soon as the chat model answers, then "cover" once the cover job finishes
+    @GetMapping(value = "/generate-ai-book-details/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> generateBookDetailsStream(@RequestParam String title) {
+        Mono<AiBookDetails> details = Mono.fromCallable(() -> bookEnrichmentService.generateDetails(title))
+                .subscribeOn(Schedulers.boundedElastic())
+                .cache();
+
+        return Flux.concat(
+                        details.map(d -> ServerSentEvent.<Object>builder(d.getBook()).event("metadata").build()),
+                        details.flatMap(d -> coverJobCompletion(d.getCoverJobId()))
+                                .map(job -> ServerSentEvent.<Object>builder(job).event("cover").build())
+                )
+                .onErrorResume(e -> Mono.just(ServerSentEvent.<Object>builder(e.getMessage()).event("error").build()));
+    }
+
+    // Catalog of generated book details (admin): look up an entry, regenerate it, or drop it
+    @GetMapping("/catalog")
+    public ResponseEntity<CatalogBook> getCatalogEntry(@RequestParam String title) throws ResourceNotFoundException {
+        CatalogBook entry = bookCatalogService.find(BookCatalogService.key(title));
+        if (entry == null) {
+            throw new ResourceNotFoundException("\"" + title + "\" is not in the catalog");
+        }
+        return ResponseEntity.ok(entry);
+    }
+
+    // Generates metadata and cover again; the catalog entry is replaced once the new cover is done
+    @PostMapping("/catalog/refresh")
+    public ResponseEntity<AiBookDetails> refreshCatalogEntry(@RequestParam String title) {
+        return ResponseEntity.ok(bookEnrichmentService.generateDetails(title, true));
+    }
+
+    @DeleteMapping("/catalog")
+    public ResponseEntity<Void> deleteCatalogEntry(@RequestParam String title) {
+        return bookCatalogService.delete(BookCatalogService.key(title))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/cover-jobs/{jobId}")
+    public ResponseEntity<CoverJob> getCoverJob(@PathVariable String jobId) throws ResourceNotFoundException {
+        return ResponseEntity.ok(bookEnrichmentService.getCoverJob(jobId));
+    }
+
+    // Push variant of the poll above: a single "cover" event once the job is finished
+    @GetMapping(value = "/cover-jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CoverJob>> streamCoverJob(@PathVariable String jobId) {
+        return coverJobCompletion(jobId)
+                .map(job -> ServerSentEvent.builder(job).event("cover").build())
+                .flux();
+    }
+
+    private Mono<CoverJob> coverJobCompletion(String jobId) {
+        return Mono.fromCallable(() -> bookEnrichmentService.getCoverJob(jobId))
+                .flatMap(job -> Mono.fromFuture(job.getCompletion()));
     }
 
 
     @GetMapping("/get-books")
-    public ResponseEntity<List<Book>> getAllBooks(){
-        return ResponseEntity.ok(bookService.fetchAllBooks());
+    public ResponseEntity<List<Book>> getAllBooks(WebRequest request){
+        if (request.checkNotModified(bookService.listingEtag(null))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(bookService.fetchAllBooks());
+    }
+
+    // Bulk import from CSV or JSON; runs in the background, poll the returned job for progress
+    @PostMapping("/import")
+    public ResponseEntity<ImportJob> importBooks(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "email", required = false) String email
+    ) throws IOException {
+        ImportJob job = bookImportService.startImport(file, email);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) throws ResourceNotFoundException {
+        return ResponseEntity.ok(bookImportService.getJob(jobId));
+    }
+
+    @PostMapping("/import/{jobId}/resume")
+    public ResponseEntity<ImportJob> resumeImport(@PathVariable String jobId) throws ResourceNotFoundException {
+        return ResponseEntity.accepted().body(bookImportService.resumeImport(jobId));
+    }
+
+    // How many books are still waiting for their embeddings
+    @GetMapping("/embedding-lag")
+    public ResponseEntity<EmbeddingLag> getEmbeddingLag() {
+        return ResponseEntity.ok(embeddingOutboxService.getLag());
+    }
+
+    @PostMapping("/embedding-lag/requeue-dead")
+    public ResponseEntity<Integer> requeueDeadEmbeddings() {
+        return ResponseEntity.ok(embeddingOutboxService.requeueDead());
+    }
+
+    @PostMapping("/vector-store/reconcile")
+    public ResponseEntity<VectorReconcileResult> reconcileVectorStore() {
+        return ResponseEntity.ok(vectorStoreMaintenanceService.reconcile());
+    }
+
+    // Stream the library (all users, or one email) as NDJSON, optionally gzipped
+    @GetMapping("/export")
+    public void exportBooks(
+            @RequestParam(required = false) String email,
+            @RequestParam(defaultValue = "false") boolean includeCovers,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response
+    ) throws IOException {
+        String fileName = gzip ? "books.ndjson.gz" : "books.ndjson";
+        response.setContentType(gzip ? "application/gzip" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024)) {
+                bookExportService.exportBooks(email, includeCovers, gzipOut);
+            }
+        } else {
+            bookExportService.exportBooks(email, includeCovers, out);
+        }
+    }
+
+    // Stream a book's cover from the cover store; ?size=thumbnail|card|full picks a resized variant (default full)
+    @GetMapping("/{id}/cover")
+    public ResponseEntity<Resource> getCover(
+            @PathVariable Long id,
+            @RequestParam(required = false) String size,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) throws ResourceNotFoundException, IOException {
+        Book book = bookService.getBookWithCover(id);
+        return coverResponse(book.getCoverKey(), size, accept, CacheControl.noCache());
+    }
+
+    // Preview a stored cover by key (e.g. an AI generated cover before the book is saved), or a variant
+    // of it with ?size=; the listings use this with the book's coverKey
+    @GetMapping("/covers/{key}")
+    public ResponseEntity<Resource> getCoverByKey(
+            @PathVariable String key,
+            @RequestParam(required = false) String size,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) throws IOException {
+        if (!coverStorageService.exists(key)) {
+            return ResponseEntity.notFound().build();
+        }
+        // Content addressed, so the bytes behind a key (and its variants) never change
+        return coverResponse(key, size, accept, CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+    }
+
+    // Only re-encoded images are sent, never the stored original with its EXIF/XMP metadata
+    private ResponseEntity<Resource> coverResponse(String key, String size, String accept,
+                                                   CacheControl cacheControl) throws IOException {
+        CoverSize coverSize = size != null ? CoverSize.fromParam(size) : CoverSize.FULL;
+        if (coverSize == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // WebP for browsers that announce it, JPEG otherwise; caches must keep both apart
+        boolean acceptsWebp = accept != null && accept.contains("image/webp");
+        Path variant = coverImageService.findVariant(key, coverSize, acceptsWebp);
+        if (variant == null) {
+            // Still being generated: a stripped copy of the original, revalidated so the variant replaces it later
+            Path stripped = coverImageService.findStrippedOriginal(key);
+            if (stripped == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return fileResponse(stripped, key + "-original", MediaType.IMAGE_JPEG, CacheControl.noCache(), HttpHeaders.ACCEPT);
+        }
+        boolean webp = variant.getFileName().toString().endsWith(".webp");
+        return fileResponse(variant, key + "-" + coverSize.param() + (webp ? "-webp" : ""),
+                webp ? MediaType.parseMediaType("image/webp") : MediaType.IMAGE_JPEG, cacheControl, HttpHeaders.ACCEPT);
+    }
+
+    private ResponseEntity<Resource> fileResponse(Path file, String eTag, MediaType mediaType, CacheControl cacheControl,
+                                                  String... varyBy) throws IOException {
+        FileSystemResource resource = new FileSystemResource(file);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (varyBy.length > 0) {
+            response.varyBy(varyBy);
+        }
+        return response
+                .eTag(eTag)
+                .lastModified(resource.lastModified())
+                .cacheControl(cacheControl)
+                .contentType(mediaType)
+                .contentLength(resource.contentLength())
+                .body(resource);
     }
 }
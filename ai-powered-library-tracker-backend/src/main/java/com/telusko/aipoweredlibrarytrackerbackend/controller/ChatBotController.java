@@ -3,8 +3,10 @@ package com.telusko.aipoweredlibrarytrackerbackend.controller;
 import com.telusko.aipoweredlibrarytrackerbackend.model.BotResponse;
 import com.telusko.aipoweredlibrarytrackerbackend.service.ChatBotService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -15,8 +17,16 @@ public class ChatBotController {
     private ChatBotService chatBotService;
 
     @GetMapping("/ask")
-    public ResponseEntity<BotResponse> askBot(@RequestParam String message) {
-        String reply = chatBotService.getBotResponse(message);
+    public ResponseEntity<BotResponse> askBot(@RequestParam String message,
+                                              @RequestParam(required = false) String email) {
+        String reply = chatBotService.getBotResponse(message, email);
         return ResponseEntity.ok(new BotResponse(reply));
     }
+
+    // Server-Sent Events: one BotResponse per chunk, so the first tokens show up immediately
+    @GetMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<BotResponse> askBotStream(@RequestParam String message,
+                                          @RequestParam(required = false) String email) {
+        return chatBotService.streamBotResponse(message, email).map(BotResponse::new);
+    }
 }
\ No newline at end of file
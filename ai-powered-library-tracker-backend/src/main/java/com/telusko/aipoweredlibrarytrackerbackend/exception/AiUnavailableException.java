@@ -0,0 +1,14 @@
+package com.telusko.aipoweredlibrarytrackerbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// An OpenAI call was refused (circuit open, too many concurrent calls) or timed out.
+// Unchecked because it is thrown through the Spring AI model interfaces.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AiUnavailableException extends RuntimeException {
+
+    public AiUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
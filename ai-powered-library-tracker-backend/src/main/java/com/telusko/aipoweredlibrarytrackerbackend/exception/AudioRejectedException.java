@@ -0,0 +1,13 @@
+package com.telusko.aipoweredlibrarytrackerbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Voice search audio over the configured size or duration limit
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class AudioRejectedException extends Exception {
+
+    public AudioRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.telusko.aipoweredlibrarytrackerbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Uploaded cover that is not a supported image, or too large to process
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidImageException extends Exception {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
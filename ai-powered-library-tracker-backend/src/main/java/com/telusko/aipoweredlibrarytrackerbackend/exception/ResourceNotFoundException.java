@@ -1,5 +1,9 @@
 package com.telusko.aipoweredlibrarytrackerbackend.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class ResourceNotFoundException extends Exception{
 
     public ResourceNotFoundException(String message) {
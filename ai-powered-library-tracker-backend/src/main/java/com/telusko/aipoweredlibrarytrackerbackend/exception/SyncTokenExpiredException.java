@@ -0,0 +1,13 @@
+package com.telusko.aipoweredlibrarytrackerbackend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The sync token is older than the tombstone retention; the client has to do a full sync (no since)
+@ResponseStatus(HttpStatus.GONE)
+public class SyncTokenExpiredException extends Exception {
+
+    public SyncTokenExpiredException(String message) {
+        super(message);
+    }
+}
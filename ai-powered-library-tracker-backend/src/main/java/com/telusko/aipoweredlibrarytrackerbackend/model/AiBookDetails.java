@@ -0,0 +1,16 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// AI generated metadata, returned right away; the cover follows through the cover job
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiBookDetails {
+    private String title;       // title as requested
+    private Book book;          // null if metadata generation failed
+    private String coverJobId;
+    private String error;
+}
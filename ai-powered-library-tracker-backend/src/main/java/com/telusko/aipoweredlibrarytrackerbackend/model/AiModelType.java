@@ -0,0 +1,14 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+// OpenAI model families; each has its own bulkhead, time limiter and circuit breaker
+// (resilience4j instance named after instanceName())
+public enum AiModelType {
+    CHAT,
+    IMAGE,
+    TRANSCRIPTION,
+    EMBEDDING;
+
+    public String instanceName() {
+        return name().toLowerCase();
+    }
+}
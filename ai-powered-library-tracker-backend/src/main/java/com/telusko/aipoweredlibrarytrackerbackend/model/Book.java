@@ -1,17 +1,25 @@
 package com.telusko.aipoweredlibrarytrackerbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
+import java.time.Instant;
 
 @Entity
+@Table(indexes = @Index(name = "idx_book_user_email_id", columnList = "userEmail, id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Book {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (ids are allocated 50 at a time)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -23,10 +31,23 @@ public class Book {
     private String imageName;
     private String imageType;
 
-    @Lob
-    private byte[] coverImage;
+    // SHA-256 key of the cover in the cover store, served by GET /api/books/{id}/cover
+    private String coverKey;
 
     private boolean read;
 
+    // Hash of the content currently embedded in the vector store, set by the embedding worker
+    @JsonIgnore
+    private String embeddingHash;
+
     private String userEmail; // acts like user ID
+
+    // Incremented on every update (optimistic locking)
+    @Version
+    private Long version;
+
+    // Maintained by the book change trigger (see BookChangeTrackingInitializer), also for bulk SQL updates
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(insertable = false, updatable = false)
+    private Instant updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Delta for GET /api/books/changes: apply deletedIds first, then upsert books, then keep token for the next call
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookChanges {
+    private List<Book> books;          // inserted or updated since the token (may repeat already seen changes)
+    private List<Long> deletedIds;     // tombstones: deleted, or moved to another user for a per-user sync
+    private String token;
+    private boolean fullSync;          // true when books is the complete set (no token was given)
+}
@@ -0,0 +1,14 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import java.time.Instant;
+
+// State of a set of books, cheap to read without loading them: an insert or update moves lastUpdated
+// (stamped by the book change trigger) and, through @Version, the version sum; a delete lowers the count.
+// Used as the ETag of the book listings.
+public record BookListingVersion(Long count, Instant lastUpdated, Long versionSum) {
+
+    public String etag() {
+        String updated = lastUpdated == null ? "0" : lastUpdated.getEpochSecond() + "." + lastUpdated.getNano();
+        return count + "-" + updated + "-" + versionSum;
+    }
+}
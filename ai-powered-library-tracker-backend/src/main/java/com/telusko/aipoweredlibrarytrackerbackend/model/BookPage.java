@@ -0,0 +1,16 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One page of a keyset paginated listing; pass nextCursor as "after" to get the next page
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPage {
+    private List<BookSummary> books;
+    private Long nextCursor; // null when there are no more pages
+}
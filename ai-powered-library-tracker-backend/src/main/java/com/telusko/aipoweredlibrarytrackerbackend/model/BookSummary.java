@@ -0,0 +1,20 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Lightweight listing view of a Book: no description, the cover is fetched separately by coverKey
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSummary {
+    private Long id;
+    private String title;
+    private String author;
+    private String genre;
+    private int pageCount;
+    private boolean read;
+    private String coverKey;
+    private String userEmail;
+}
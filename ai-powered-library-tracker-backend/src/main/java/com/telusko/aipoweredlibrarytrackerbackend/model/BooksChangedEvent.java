@@ -0,0 +1,7 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import java.util.List;
+
+// Published after books were re-embedded or deleted, so derived caches can drop stale entries
+public record BooksChangedEvent(List<Long> bookIds) {
+}
@@ -0,0 +1,39 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Known book in the AI metadata catalog: generated metadata plus cover, shared by all users.
+// Keyed by the normalized title, or "isbn:<digits>" when the book was requested by ISBN (see BookCatalogService).
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogBook {
+    @Id
+    @Column(length = 512)
+    private String catalogKey;
+
+    private String title;
+    private String author;
+    private String genre;
+
+    @Column(length = 2000)
+    private String description;
+
+    private int pageCount;
+
+    // Cover in the cover store; null when the cover generation failed (it is retried on the next request)
+    private String coverKey;
+    private String imageName;
+    private String imageType;
+
+    private Instant createdAt;
+    private Instant refreshedAt;
+}
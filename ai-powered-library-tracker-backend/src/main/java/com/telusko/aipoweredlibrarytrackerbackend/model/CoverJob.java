@@ -0,0 +1,27 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+// Background AI cover generation for a generated book; poll it by id or wait on it over SSE
+@Data
+public class CoverJob {
+    private String id;
+    private String title;
+    private volatile CoverJobStatus status; // written last, so a reader seeing COMPLETED also sees the cover fields
+
+    private String coverKey;
+    private String imageName;
+    private String imageType;
+    private String error;
+
+    private Instant createdAt;
+    private Instant completedAt;
+
+    // Completes with this job once it reaches COMPLETED or FAILED
+    @JsonIgnore
+    private final CompletableFuture<CoverJob> completion = new CompletableFuture<>();
+}
@@ -0,0 +1,8 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+public enum CoverJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
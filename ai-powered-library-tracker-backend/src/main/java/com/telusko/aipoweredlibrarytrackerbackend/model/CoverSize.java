@@ -0,0 +1,40 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+// Cover variants produced by CoverImageService; each fits into maxWidth x maxHeight (never upscaled).
+// card is sized for the 128x176 css px book card at up to 2.5x device pixel ratio.
+public enum CoverSize {
+    THUMBNAIL(160, 240),
+    CARD(320, 480),
+    FULL(1024, 1536);
+
+    private final int maxWidth;
+    private final int maxHeight;
+
+    CoverSize(int maxWidth, int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    public int maxWidth() {
+        return maxWidth;
+    }
+
+    public int maxHeight() {
+        return maxHeight;
+    }
+
+    // Name used in variant file names and the size request parameter
+    public String param() {
+        return name().toLowerCase();
+    }
+
+    // null for an unknown size
+    public static CoverSize fromParam(String param) {
+        for (CoverSize size : values()) {
+            if (size.param().equalsIgnoreCase(param)) {
+                return size;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// How far the vector store is behind the book table
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmbeddingLag {
+    private long pending;
+    private long dead;
+    private long oldestPendingAgeSeconds;
+}
@@ -0,0 +1,34 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// A book waiting to be (re)embedded into the vector store, written in the same transaction as the book
+@Entity
+@Table(indexes = @Index(name = "idx_embedding_outbox_status_next", columnList = "status, nextAttemptAt"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmbeddingOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "embedding_outbox_seq")
+    @SequenceGenerator(name = "embedding_outbox_seq", sequenceName = "embedding_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status;
+
+    private int attempts;
+    private Instant nextAttemptAt;
+
+    @Column(length = 2000)
+    private String lastError;
+
+    private Instant createdAt;
+}
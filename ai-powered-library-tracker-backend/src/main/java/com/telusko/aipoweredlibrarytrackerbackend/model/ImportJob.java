@@ -0,0 +1,34 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Progress and checkpoint of a bulk book import; processedRows is committed with each chunk
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJob {
+    @Id
+    private String id;
+
+    private String fileName;
+    private String filePath;
+    private String userEmail; // used for rows without their own userEmail
+
+    @Enumerated(EnumType.STRING)
+    private ImportStatus status;
+
+    private long processedRows;
+    private long importedBooks;
+
+    @Column(length = 2000)
+    private String error;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
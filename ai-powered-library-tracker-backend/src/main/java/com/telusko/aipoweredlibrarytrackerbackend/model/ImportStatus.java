@@ -0,0 +1,7 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+public enum OutboxStatus {
+    PENDING,
+    DEAD // gave up after max attempts, requeue manually
+}
@@ -0,0 +1,13 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VectorReconcileResult {
+    private int purgedDocuments; // vector_store rows whose book no longer exists
+    private int enqueuedBooks;   // books never embedded with a deterministic document id
+}
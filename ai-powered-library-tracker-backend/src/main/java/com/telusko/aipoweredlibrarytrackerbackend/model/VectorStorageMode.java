@@ -0,0 +1,9 @@
+package com.telusko.aipoweredlibrarytrackerbackend.model;
+
+// How vector_store embeddings are represented in the ANN index (the table keeps full precision)
+public enum VectorStorageMode {
+    FULL,       // float32 vector, 4 bytes per dimension
+    HALFVEC,    // float16, half the index size, near identical recall
+    BINARY,     // 1 bit per dimension (32x smaller), candidates re-scored with the full vectors
+    TRUNCATED   // first N dimensions only (Matryoshka models such as text-embedding-3), re-scored with the full vectors
+}
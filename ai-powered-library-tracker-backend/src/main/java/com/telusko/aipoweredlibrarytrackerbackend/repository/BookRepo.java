@@ -1,13 +1,102 @@
 package com.telusko.aipoweredlibrarytrackerbackend.repository;
 
 import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookListingVersion;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepo extends JpaRepository<Book,Long> {
 
     List<Book> findAllByUserEmail(String email);
+
+    // Keyset (seek) pagination: "id > :afterId ORDER BY id" stays an index range scan on every page
+    @Query("""
+            SELECT new com.telusko.aipoweredlibrarytrackerbackend.model.BookSummary(
+                b.id, b.title, b.author, b.genre, b.pageCount, b.read, b.coverKey, b.userEmail)
+            FROM Book b
+            WHERE b.id > :afterId
+            ORDER BY b.id
+            """)
+    List<BookSummary> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("""
+            SELECT new com.telusko.aipoweredlibrarytrackerbackend.model.BookSummary(
+                b.id, b.title, b.author, b.genre, b.pageCount, b.read, b.coverKey, b.userEmail)
+            FROM Book b
+            WHERE b.userEmail = :email AND b.id > :afterId
+            ORDER BY b.id
+            """)
+    List<BookSummary> findSummariesByUserEmailAfter(@Param("email") String email,
+                                                    @Param("afterId") long afterId,
+                                                    Limit limit);
+
+    // ETag of the listings, an aggregate over the (user's) rows instead of loading them
+    @Query("""
+            SELECT new com.telusko.aipoweredlibrarytrackerbackend.model.BookListingVersion(
+                COUNT(b), MAX(b.updatedAt), COALESCE(SUM(b.version), 0L))
+            FROM Book b
+            """)
+    BookListingVersion findListingVersion();
+
+    @Query("""
+            SELECT new com.telusko.aipoweredlibrarytrackerbackend.model.BookListingVersion(
+                COUNT(b), MAX(b.updatedAt), COALESCE(SUM(b.version), 0L))
+            FROM Book b
+            WHERE b.userEmail = :email
+            """)
+    BookListingVersion findListingVersionByUserEmail(@Param("email") String email);
+
+    // Delta sync: rows stamped with a transaction id >= the token's xmin (change_xid is set by trigger)
+    @Query(value = "SELECT * FROM book WHERE change_xid >= :since ORDER BY id", nativeQuery = true)
+    List<Book> findChangedSince(@Param("since") long since);
+
+    @Query(value = "SELECT * FROM book WHERE user_email = :email AND change_xid >= :since ORDER BY id", nativeQuery = true)
+    List<Book> findChangedSinceByUserEmail(@Param("email") String email, @Param("since") long since);
+
+    // SELECT ... FOR UPDATE in id order, so concurrent lockers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id")
+    List<Book> lockAllById(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.embeddingHash = :hash WHERE b.id = :id")
+    void updateEmbeddingHash(@Param("id") Long id, @Param("hash") String hash);
+
+    // Books never embedded by the outbox worker and not already waiting in the outbox
+    @Query("""
+            SELECT b.id FROM Book b
+            WHERE b.embeddingHash IS NULL
+              AND NOT EXISTS (SELECT 1 FROM EmbeddingOutbox o WHERE o.bookId = b.id)
+            ORDER BY b.id
+            """)
+    List<Long> findIdsWithoutEmbedding(Limit limit);
+
+    // Cursor based streams for exports: must be consumed inside a read-only transaction,
+    // otherwise the Postgres driver ignores the fetch size and buffers the whole result
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAllBooks();
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAllByUserEmailOrderById(String email);
 }
@@ -0,0 +1,9 @@
+package com.telusko.aipoweredlibrarytrackerbackend.repository;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.CatalogBook;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogBookRepo extends JpaRepository<CatalogBook, String> {
+}
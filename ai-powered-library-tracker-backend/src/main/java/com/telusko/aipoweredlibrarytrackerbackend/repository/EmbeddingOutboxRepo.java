@@ -0,0 +1,55 @@
+package com.telusko.aipoweredlibrarytrackerbackend.repository;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.EmbeddingOutbox;
+import com.telusko.aipoweredlibrarytrackerbackend.model.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EmbeddingOutboxRepo extends JpaRepository<EmbeddingOutbox, Long> {
+
+    // SKIP LOCKED lets several workers drain the outbox without picking the same rows
+    @Query(value = """
+            SELECT * FROM embedding_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmbeddingOutbox> claimBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    // The other due rows of the claimed books, so a book queued several times is embedded once
+    @Query(value = """
+            SELECT * FROM embedding_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now AND book_id IN (:bookIds)
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmbeddingOutbox> claimForBooks(@Param("bookIds") List<Long> bookIds, @Param("now") Instant now);
+
+    // Hides claimed rows from other workers while they are embedded outside the claiming transaction;
+    // rows of a crashed worker become due again when the lease runs out
+    @Modifying
+    @Query("UPDATE EmbeddingOutbox o SET o.nextAttemptAt = :leaseUntil WHERE o.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("leaseUntil") Instant leaseUntil);
+
+    long countByStatus(OutboxStatus status);
+
+    Optional<EmbeddingOutbox> findFirstByStatusOrderByCreatedAtAsc(OutboxStatus status);
+
+    @Modifying
+    @Query("""
+            UPDATE EmbeddingOutbox o
+            SET o.status = com.telusko.aipoweredlibrarytrackerbackend.model.OutboxStatus.PENDING,
+                o.attempts = 0,
+                o.nextAttemptAt = :now
+            WHERE o.status = com.telusko.aipoweredlibrarytrackerbackend.model.OutboxStatus.DEAD
+            """)
+    int requeueDead(@Param("now") Instant now);
+}
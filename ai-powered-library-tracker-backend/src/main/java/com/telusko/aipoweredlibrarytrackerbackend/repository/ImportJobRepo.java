@@ -0,0 +1,14 @@
+package com.telusko.aipoweredlibrarytrackerbackend.repository;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.ImportJob;
+import com.telusko.aipoweredlibrarytrackerbackend.model.ImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportJobRepo extends JpaRepository<ImportJob, String> {
+
+    List<ImportJob> findAllByStatus(ImportStatus status);
+}
@@ -1,5 +1,7 @@
 package com.telusko.aipoweredlibrarytrackerbackend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.image.ImageModel;
 import org.springframework.ai.image.ImagePrompt;
 import org.springframework.ai.image.ImageResponse;
@@ -7,41 +9,51 @@ import org.springframework.ai.openai.OpenAiImageOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.InputStream;
-import java.net.URL;
+import java.util.Base64;
 
 @Service
 public class AIImageGeneratorService {
 
+    private static final Logger log = LoggerFactory.getLogger(AIImageGeneratorService.class);
+
     @Autowired
     private ImageModel imageModel;
 
+    @Autowired
+    private AiMetrics aiMetrics;
+
+    // Model failures propagate (AiUnavailableException from the guard included), so the cover job
+    // reports the real cause; null only when the model answered without an image
     public byte[] generateImage(String prompt) {
+        // Create image generation options using OpenAI (size, quality, number of images)
+        OpenAiImageOptions options = OpenAiImageOptions.builder()
+                .N(1)
+                .width(1024)
+                .height(1024)
+                .quality("standard")
+                .responseFormat("b64_json") // image comes back inline, no second download
+                .model("dall-e-3")     // optional
+                .build();
+
+        StageTimer timer = aiMetrics.start("cover-image");
+        String outcome = "error";
         try {
-            // Create image generation options using OpenAI (size, quality, number of images)
-            OpenAiImageOptions options = OpenAiImageOptions.builder()
-                    .N(1)
-                    .width(1024)
-                    .height(1024)
-                    .quality("standard")
-                    .responseFormat("url") // or "b64_json"
-                    .model("dall-e-3")     // optional
-                    .build();
-
             // Send prompt to the AI model and receive the image response
-            ImageResponse response = imageModel.call(new ImagePrompt(prompt, options));
-
-            // Extract the generated image URL from the response
-            String imageUrl = response.getResult().getOutput().getUrl();
+            ImageResponse response = timer.stage("generate", () -> imageModel.call(new ImagePrompt(prompt, options)));
+            aiMetrics.recordImage("cover-image");
 
-            // Download the image using the URL
-            try (InputStream in = new URL(imageUrl).openStream()) {
-                return in.readAllBytes();
+            if (response == null || response.getResult() == null || response.getResult().getOutput().getB64Json() == null) {
+                log.warn("Image model returned no image");
+                return null;
             }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            // Decode the base64 image from the response
+            String b64Json = response.getResult().getOutput().getB64Json();
+            byte[] image = timer.stage("decode", () -> Base64.getDecoder().decode(b64Json));
+            outcome = "success";
+            return image;
+        } finally {
+            aiMetrics.finish(timer, outcome);
         }
     }
 }
@@ -0,0 +1,106 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AiUnavailableException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiModelType;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Runs OpenAI calls through the resilience4j bulkhead, circuit breaker and time limiter of their model type
+// (configured under resilience4j.* in application.properties). Order: bulkhead outermost, so calls rejected
+// for lack of a slot are not counted as model failures by the breaker; the time limit is innermost, so
+// timeouts are. Refused and timed out calls surface as AiUnavailableException (503), which callers with a
+// degraded answer catch; other model errors pass through unchanged.
+@Service
+public class AiCallGuard {
+
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private TimeLimiterRegistry timeLimiterRegistry;
+
+    // Blocking calls run here so the time limiter can give up on them (and interrupt them).
+    // The caller's observation context is carried over, so model call spans nest under the request's span.
+    private final ExecutorService executor = ContextExecutorService.wrap(
+            Executors.newVirtualThreadPerTaskExecutor(), ContextSnapshotFactory.builder().build());
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public <T> T call(AiModelType type, Supplier<T> call) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(type.instanceName());
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(type.instanceName());
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(type.instanceName());
+
+        Callable<T> timed = TimeLimiter.decorateFutureSupplier(timeLimiter, () -> executor.submit(call::get));
+        Callable<T> guarded = Bulkhead.decorateCallable(bulkhead, CircuitBreaker.decorateCallable(circuitBreaker, timed));
+
+        try {
+            return guarded.call();
+        } catch (RuntimeException e) {
+            throw unavailable(type, e);
+        } catch (TimeoutException e) {
+            throw new AiUnavailableException("The " + type.instanceName() + " model did not answer within "
+                    + timeLimiter.getTimeLimiterConfig().getTimeoutDuration(), e);
+        } catch (Exception e) {
+            throw new IllegalStateException("The " + type.instanceName() + " model call failed", e);
+        }
+    }
+
+    // Streaming variant: the bulkhead slot is held until the stream ends, and the time limit applies
+    // to every wait for the next chunk (including the first one)
+    public <T> Flux<T> stream(AiModelType type, Flux<T> stream) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(type.instanceName());
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(type.instanceName());
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(type.instanceName());
+
+        return stream
+                .timeout(timeLimiter.getTimeLimiterConfig().getTimeoutDuration())
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .onErrorMap(e -> e instanceof TimeoutException
+                        ? new AiUnavailableException("The " + type.instanceName() + " model stopped streaming", e)
+                        : e instanceof RuntimeException runtime ? unavailable(type, runtime) : e);
+    }
+
+    // False while the breaker is open, so callers can go straight to their fallback
+    public boolean isAvailable(AiModelType type) {
+        CircuitBreaker.State state = circuitBreakerRegistry.circuitBreaker(type.instanceName()).getState();
+        return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    private RuntimeException unavailable(AiModelType type, RuntimeException e) {
+        if (e instanceof CallNotPermittedException) {
+            return new AiUnavailableException("The " + type.instanceName() + " model is failing, calls are paused", e);
+        }
+        if (e instanceof BulkheadFullException) {
+            return new AiUnavailableException("Too many concurrent " + type.instanceName() + " model calls", e);
+        }
+        return e;
+    }
+}
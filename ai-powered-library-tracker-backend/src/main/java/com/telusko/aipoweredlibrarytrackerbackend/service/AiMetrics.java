@@ -0,0 +1,146 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+// Metrics of the AI request paths, all tagged with the operation (search, chat, rerank, ...):
+//   book.stage                  timer per stage (see StageTimer), percentile histograms for Prometheus
+//   book.ai.tokens              prompt / completion tokens reported by the chat model
+//   book.ai.images              generated images
+//   book.ai.cost                estimated USD, from the book.metrics.price.* list prices
+//   book.retrieval.documents    documents / books retrieved per query
+//   book.retrieval.score        similarity score of each retrieved document
+//   book.rag.context.tokens     prompt context size after dedup, compaction and the token budget
+//   book.rag.context.books      books in that context
+//   book.requests               finished requests by outcome (success, cached, fallback, error)
+// Requests slower than book.metrics.slow-request-threshold log their stage breakdown.
+@Service
+public class AiMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(AiMetrics.class);
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${book.metrics.slow-request-threshold:PT2S}")
+    private Duration slowRequestThreshold;
+
+    @Value("${book.metrics.price.prompt-per-million:2.50}")
+    private double promptPricePerMillion;
+
+    @Value("${book.metrics.price.completion-per-million:10.00}")
+    private double completionPricePerMillion;
+
+    @Value("${book.metrics.price.image:0.04}")
+    private double imagePrice;
+
+    public StageTimer start(String operation) {
+        return start(operation, System.nanoTime());
+    }
+
+    public StageTimer start(String operation, long startNanos) {
+        return new StageTimer(operation, startNanos, observationRegistry, meterRegistry);
+    }
+
+    public void finish(StageTimer timer) {
+        finish(timer, "success");
+    }
+
+    public void finish(StageTimer timer, String outcome) {
+        Counter.builder("book.requests")
+                .tag("operation", timer.operation())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+        long elapsed = timer.elapsedNanos();
+        if (elapsed >= slowRequestThreshold.toNanos()) {
+            log.warn("Slow {} request ({} ms, {}): {}", timer.operation(), elapsed / 1_000_000, outcome, timer);
+        }
+    }
+
+    // Streamed responses only carry usage on their last chunk (stream-usage enabled); the others report 0
+    public void recordUsage(String operation, ChatResponse response) {
+        if (response == null || response.getMetadata() == null || response.getMetadata().getUsage() == null) {
+            return;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        int promptTokens = usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        int completionTokens = usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+        if (promptTokens + completionTokens == 0) {
+            return;
+        }
+
+        tokens(operation, "prompt").increment(promptTokens);
+        tokens(operation, "completion").increment(completionTokens);
+        cost(operation).increment(promptTokens * promptPricePerMillion / 1_000_000
+                + completionTokens * completionPricePerMillion / 1_000_000);
+    }
+
+    public void recordImage(String operation) {
+        Counter.builder("book.ai.images").tag("operation", operation).register(meterRegistry).increment();
+        cost(operation).increment(imagePrice);
+    }
+
+    public void recordRetrieval(String operation, List<Document> documents) {
+        recordRetrieval(operation, documents.size());
+
+        DistributionSummary scores = DistributionSummary.builder("book.retrieval.score")
+                .tag("operation", operation)
+                .serviceLevelObjectives(0.5, 0.6, 0.7, 0.8, 0.9)
+                .register(meterRegistry);
+        for (Document document : documents) {
+            if (document.getScore() != null) {
+                scores.record(document.getScore());
+            }
+        }
+    }
+
+    public void recordRetrieval(String operation, int count) {
+        DistributionSummary.builder("book.retrieval.documents")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(count);
+    }
+
+    public void recordContext(String operation, int tokens, int books) {
+        DistributionSummary.builder("book.rag.context.tokens")
+                .baseUnit("tokens")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(tokens);
+        DistributionSummary.builder("book.rag.context.books")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(books);
+    }
+
+    private Counter tokens(String operation, String type) {
+        return Counter.builder("book.ai.tokens")
+                .tag("operation", operation)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private Counter cost(String operation) {
+        return Counter.builder("book.ai.cost")
+                .baseUnit("usd")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
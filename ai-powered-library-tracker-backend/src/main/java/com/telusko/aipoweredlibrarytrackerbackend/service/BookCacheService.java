@@ -0,0 +1,85 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Names of the Caffeine backed read caches (see @Cacheable in BookService) and their precise eviction.
+// A change to a book evicts that book, the listings of the affected user(s) and the all-users listings;
+// other users' cached lists stay. Inside a transaction eviction happens after commit, so a concurrent
+// reader cannot re-cache the old rows in between.
+@Service
+public class BookCacheService {
+
+    public static final String BOOK = "book";                    // key: book id
+    public static final String BOOKS_BY_USER = "books-by-user";  // key: email
+    public static final String ALL_BOOKS = "all-books";          // single entry
+    public static final String BOOK_PAGES = "book-pages";        // key: "<email or empty>:<after>:<size>"
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public static String pageKey(String email, Long after, Integer size) {
+        return (email == null ? "" : email) + ":" + after + ":" + size;
+    }
+
+    public void evictBooks(Collection<Long> bookIds, Collection<String> userEmails) {
+        List<Long> ids = List.copyOf(bookIds);
+        Set<String> emails = userEmails.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(ids, emails);
+                }
+            });
+        } else {
+            evictNow(ids, emails);
+        }
+    }
+
+    public void evictAll() {
+        for (String name : List.of(BOOK, BOOKS_BY_USER, ALL_BOOKS, BOOK_PAGES)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void evictNow(List<Long> bookIds, Set<String> emails) {
+        Cache books = cacheManager.getCache(BOOK);
+        if (books != null) {
+            bookIds.forEach(books::evict);
+        }
+
+        Cache byUser = cacheManager.getCache(BOOKS_BY_USER);
+        if (byUser != null) {
+            emails.forEach(byUser::evict);
+        }
+
+        Cache all = cacheManager.getCache(ALL_BOOKS);
+        if (all != null) {
+            all.clear();
+        }
+
+        // Pages of the affected users and the unfiltered pages
+        if (cacheManager.getCache(BOOK_PAGES) instanceof CaffeineCache pages) {
+            pages.getNativeCache().asMap().keySet().removeIf(key -> {
+                String text = String.valueOf(key);
+                return text.startsWith(":") || emails.stream().anyMatch(email -> text.startsWith(email + ":"));
+            });
+        }
+    }
+}
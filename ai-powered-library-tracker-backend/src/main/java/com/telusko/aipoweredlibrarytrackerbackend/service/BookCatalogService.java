@@ -0,0 +1,91 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CatalogBook;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.CatalogBookRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Persistent catalog of AI generated book details, so a title that was generated once is answered
+// from the database instead of the chat and image models. Titles are normalized (case, accents,
+// punctuation, spacing) into the catalog key; a request that is an ISBN-10/13 is keyed by its digits.
+@Service
+public class BookCatalogService {
+
+    private static final Pattern ISBN = Pattern.compile("\\d{9}[\\dX]|\\d{13}");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private CatalogBookRepo catalogBookRepo;
+
+    @Value("${book.catalog.enabled:true}")
+    private boolean enabled;
+
+    public static String key(String title) {
+        String compact = title.strip().toUpperCase(Locale.ROOT).replaceAll("[\\s-]", "");
+        if (ISBN.matcher(compact).matches()) {
+            return "isbn:" + compact;
+        }
+        String plain = ACCENTS.matcher(Normalizer.normalize(title, Normalizer.Form.NFKD)).replaceAll("");
+        return NON_WORD.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public CatalogBook find(String key) {
+        return enabled ? catalogBookRepo.findById(key).orElse(null) : null;
+    }
+
+    // Only verified metadata is kept: when the model could not identify the book ("Unknown" author)
+    // a later request should ask again rather than get the placeholder forever
+    public void save(String key, Book book) {
+        if (!enabled || book.getAuthor() == null || book.getAuthor().isBlank()
+                || book.getAuthor().trim().equalsIgnoreCase("unknown")) {
+            return;
+        }
+        Instant now = Instant.now();
+        CatalogBook entry = catalogBookRepo.findById(key).orElseGet(() -> {
+            CatalogBook created = new CatalogBook();
+            created.setCatalogKey(key);
+            created.setCreatedAt(now);
+            return created;
+        });
+        entry.setTitle(book.getTitle());
+        entry.setAuthor(book.getAuthor());
+        entry.setGenre(book.getGenre());
+        entry.setDescription(book.getDescription());
+        entry.setPageCount(book.getPageCount());
+        entry.setCoverKey(book.getCoverKey());
+        entry.setImageName(book.getImageName());
+        entry.setImageType(book.getImageType());
+        entry.setRefreshedAt(now);
+        catalogBookRepo.save(entry);
+    }
+
+    public boolean delete(String key) {
+        if (!catalogBookRepo.existsById(key)) {
+            return false;
+        }
+        catalogBookRepo.deleteById(key);
+        return true;
+    }
+
+    // A fresh (unsaved) book with the catalog's details, as generateBookMetadata/generateBookCover return it
+    public Book toBook(CatalogBook entry) {
+        Book book = new Book();
+        book.setTitle(entry.getTitle());
+        book.setAuthor(entry.getAuthor());
+        book.setGenre(entry.getGenre());
+        book.setDescription(entry.getDescription());
+        book.setPageCount(entry.getPageCount());
+        book.setCoverKey(entry.getCoverKey());
+        book.setImageName(entry.getImageName());
+        book.setImageType(entry.getImageType());
+        return book;
+    }
+}
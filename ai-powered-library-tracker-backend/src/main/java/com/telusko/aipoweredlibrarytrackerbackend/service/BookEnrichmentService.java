@@ -0,0 +1,267 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.ResourceNotFoundException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiBookDetails;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CatalogBook;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CoverJob;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CoverJobStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// AI book enrichment: metadata is generated on the caller's thread and returned immediately,
+// covers are generated by background jobs on virtual threads. Semaphores bound how many chat
+// and image calls run at once, which also bounds batch enrichment.
+// Titles already in the catalog (BookCatalogService) are answered without any model call.
+// Otherwise concurrent requests for the same catalog key share one generation (single flight):
+// the first caller generates, the others wait for its metadata and get the same cover job. The
+// flight ends once the cover job has finished and the result is in the catalog.
+@Service
+public class BookEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookEnrichmentService.class);
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookCatalogService bookCatalogService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${book.ai.metadata.max-concurrency:8}")
+    private int metadataMaxConcurrency;
+
+    @Value("${book.ai.cover.max-concurrency:4}")
+    private int coverMaxConcurrency;
+
+    @Value("${book.ai.cover.job-ttl:PT1H}")
+    private Duration coverJobTtl;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, CoverJob> coverJobs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<AiBookDetails>> inFlight = new ConcurrentHashMap<>();
+
+    private Semaphore metadataPermits;
+    private Semaphore coverPermits;
+
+    @PostConstruct
+    public void init() {
+        metadataPermits = new Semaphore(metadataMaxConcurrency);
+        coverPermits = new Semaphore(coverMaxConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public AiBookDetails generateDetails(String title) {
+        return generateDetails(title, false);
+    }
+
+    // refresh: generate again even when the catalog knows the title, and replace the catalog entry
+    public AiBookDetails generateDetails(String title, boolean refresh) {
+        String key = BookCatalogService.key(title);
+        CatalogBook known = refresh ? null : bookCatalogService.find(key);
+        if (known != null && known.getCoverKey() != null) {
+            catalogRequests("hit").increment();
+            CoverJob job = completedCoverJob(known, title);
+            return new AiBookDetails(title, metadataOnly(bookCatalogService.toBook(known)), job.getId(), null);
+        }
+
+        CompletableFuture<AiBookDetails> flight = new CompletableFuture<>();
+        CompletableFuture<AiBookDetails> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            catalogRequests("joined").increment();
+            return awaitFlight(running, title);
+        }
+        catalogRequests("miss").increment();
+
+        try {
+            // A catalog entry whose cover failed before only needs the cover
+            Book generated = known != null
+                    ? bookCatalogService.toBook(known)
+                    : withPermit(metadataPermits, () -> bookService.generateBookMetadata(title));
+            // Returned to (and serialized for) every caller, so nothing may change it afterwards: the
+            // cover job works on its own copy and reports the cover only through the job
+            Book book = metadataOnly(generated);
+            CoverJob job = startCoverJob(book, title);
+            job.getCompletion().whenComplete((done, e) -> {
+                try {
+                    // The catalog entry gets the cover of the finished job (none if it failed)
+                    Book entry = metadataOnly(book);
+                    if (done != null) {
+                        entry.setCoverKey(done.getCoverKey());
+                        entry.setImageName(done.getImageName());
+                        entry.setImageType(done.getImageType());
+                    }
+                    bookCatalogService.save(key, entry);
+                } catch (RuntimeException saveError) {
+                    log.warn("Could not save \"{}\" to the catalog", title, saveError);
+                } finally {
+                    inFlight.remove(key, flight);
+                }
+            });
+
+            AiBookDetails details = new AiBookDetails(title, book, job.getId(), null);
+            flight.complete(details);
+            return details;
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Waiters get the leader's result under their own spelling of the title, or the leader's exception
+    private AiBookDetails awaitFlight(CompletableFuture<AiBookDetails> flight, String title) {
+        try {
+            AiBookDetails details = flight.join();
+            return new AiBookDetails(title, details.getBook(), details.getCoverJobId(), null);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Catalog hits answer through an already finished cover job, so pollers and SSE clients work unchanged
+    private CoverJob completedCoverJob(CatalogBook known, String title) {
+        CoverJob job = new CoverJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setTitle(title);
+        job.setCoverKey(known.getCoverKey());
+        job.setImageName(known.getImageName());
+        job.setImageType(known.getImageType());
+        job.setCreatedAt(Instant.now());
+        job.setCompletedAt(job.getCreatedAt());
+        job.setStatus(CoverJobStatus.COMPLETED);
+        coverJobs.put(job.getId(), job);
+        job.getCompletion().complete(job);
+        return job;
+    }
+
+    private Counter catalogRequests(String result) {
+        return Counter.builder("book.catalog.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Enrich many titles concurrently; a failing title doesn't fail the batch
+    public List<AiBookDetails> generateDetailsBatch(List<String> titles) {
+        List<CompletableFuture<AiBookDetails>> futures = titles.stream()
+                .map(title -> CompletableFuture.supplyAsync(() -> generateDetails(title), executor)
+                        .exceptionally(e -> new AiBookDetails(title, null, null, rootMessage(e))))
+                .toList();
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    public CoverJob startCoverJob(Book book, String title) {
+        CoverJob job = new CoverJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setTitle(title);
+        job.setCreatedAt(Instant.now());
+        job.setStatus(CoverJobStatus.PENDING);
+        coverJobs.put(job.getId(), job);
+
+        // generateBookCover sets the cover on the book it is given; never the caller's instance
+        Book working = metadataOnly(book);
+        executor.submit(() -> runCoverJob(job, working, title));
+        return job;
+    }
+
+    public CoverJob getCoverJob(String jobId) throws ResourceNotFoundException {
+        CoverJob job = coverJobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Cover job " + jobId + " does not exist");
+        }
+        return job;
+    }
+
+    private void runCoverJob(CoverJob job, Book book, String title) {
+        job.setStatus(CoverJobStatus.RUNNING);
+        try {
+            Book withCover = withPermit(coverPermits, () -> bookService.generateBookCover(book, title));
+            job.setCoverKey(withCover.getCoverKey());
+            job.setImageName(withCover.getImageName());
+            job.setImageType(withCover.getImageType());
+            job.setCompletedAt(Instant.now());
+            if (withCover.getCoverKey() != null) {
+                job.setStatus(CoverJobStatus.COMPLETED);
+            } else {
+                job.setError("Image model returned no cover");
+                job.setStatus(CoverJobStatus.FAILED);
+            }
+        } catch (Exception e) {
+            job.setError(rootMessage(e));
+            job.setCompletedAt(Instant.now());
+            job.setStatus(CoverJobStatus.FAILED);
+        }
+        job.getCompletion().complete(job);
+    }
+
+    // Finished jobs are only kept around long enough to be picked up
+    @Scheduled(fixedDelayString = "${book.ai.cover.job-cleanup-interval-ms:60000}")
+    public void removeExpiredCoverJobs() {
+        Instant cutoff = Instant.now().minus(coverJobTtl);
+        coverJobs.values().removeIf(job -> job.getCompletedAt() != null && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    // Detached copy of the generated details, without any cover fields
+    private static Book metadataOnly(Book book) {
+        Book copy = new Book();
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setDescription(book.getDescription());
+        copy.setGenre(book.getGenre());
+        copy.setPageCount(book.getPageCount());
+        return copy;
+    }
+
+    private <T> T withPermit(Semaphore permits, Supplier<T> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an AI call slot", e);
+        }
+        try {
+            return task.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -0,0 +1,88 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Streams a whole library as NDJSON (one book per line) in constant memory
+@Service
+public class BookExportService {
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private CoverStorageService coverStorageService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    // The transaction keeps the database cursor open while rows are written to the output stream
+    @Transactional(readOnly = true)
+    public long exportBooks(String email, boolean includeCovers, OutputStream out) throws IOException {
+        long count = 0;
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        try (Stream<Book> books = email == null || email.isBlank()
+                ? bookRepo.streamAllBooks()
+                : bookRepo.streamAllByUserEmailOrderById(email)) {
+
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                writeBook(generator, book, includeCovers);
+
+                // Don't let the persistence context grow with the export
+                entityManager.detach(book);
+                count++;
+            }
+        }
+
+        generator.flush();
+        return count;
+    }
+
+    private void writeBook(JsonGenerator generator, Book book, boolean includeCovers) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", book.getId());
+        generator.writeStringField("title", book.getTitle());
+        generator.writeStringField("author", book.getAuthor());
+        generator.writeStringField("description", book.getDescription());
+        generator.writeStringField("genre", book.getGenre());
+        generator.writeNumberField("pageCount", book.getPageCount());
+        generator.writeBooleanField("read", book.isRead());
+        generator.writeStringField("userEmail", book.getUserEmail());
+        generator.writeStringField("imageName", book.getImageName());
+        generator.writeStringField("imageType", book.getImageType());
+        generator.writeStringField("coverKey", book.getCoverKey());
+
+        // Covers are base64 encoded straight from the cover store, never buffered whole
+        if (includeCovers && coverStorageService.exists(book.getCoverKey())) {
+            generator.writeFieldName("coverImage");
+            try (InputStream in = Files.newInputStream(coverStorageService.resolve(book.getCoverKey()))) {
+                generator.writeBinary(in, -1);
+            }
+        }
+
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
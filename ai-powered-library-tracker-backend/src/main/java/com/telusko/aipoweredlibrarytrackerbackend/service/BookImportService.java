@@ -0,0 +1,240 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.ResourceNotFoundException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.ImportJob;
+import com.telusko.aipoweredlibrarytrackerbackend.model.ImportStatus;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.ImportJobRepo;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bulk import of books from CSV or JSON (array or NDJSON).
+// The upload is kept on disk and parsed as a stream; rows are imported in chunks where the
+// batched inserts, their embedding outbox entries and the job checkpoint share one transaction.
+// A crashed or failed job resumes after its last committed chunk.
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private ImportJobRepo importJobRepo;
+
+    @Autowired
+    private EmbeddingOutboxService embeddingOutboxService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BookCacheService bookCacheService;
+
+    @Value("${book.import.directory:data/imports}")
+    private String importDirectory;
+
+    @Value("${book.import.chunk-size:500}")
+    private int chunkSize;
+
+    // Jobs running in this JVM, so a resume request never starts a second worker
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public ImportJob startImport(MultipartFile file, String userEmail) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("No import file provided.");
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "import";
+
+        Path directory = Paths.get(importDirectory).toAbsolutePath();
+        Files.createDirectories(directory);
+        Path target = directory.resolve(jobId + (isCsv(fileName) ? ".csv" : ".json"));
+        file.transferTo(target);
+
+        Instant now = Instant.now();
+        ImportJob job = importJobRepo.save(new ImportJob(
+                jobId, fileName, target.toString(), userEmail,
+                ImportStatus.RUNNING, 0, 0, null, now, now
+        ));
+
+        runInBackground(jobId);
+        return job;
+    }
+
+    public ImportJob getJob(String jobId) throws ResourceNotFoundException {
+        return importJobRepo.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job " + jobId + " does not exist"));
+    }
+
+    public ImportJob resumeImport(String jobId) throws ResourceNotFoundException {
+        ImportJob job = getJob(jobId);
+        if (job.getStatus() == ImportStatus.COMPLETED || runningJobs.contains(jobId)) {
+            return job;
+        }
+
+        job.setStatus(ImportStatus.RUNNING);
+        job.setError(null);
+        job.setUpdatedAt(Instant.now());
+        importJobRepo.save(job);
+
+        runInBackground(jobId);
+        return job;
+    }
+
+    // Pick up imports that were still running when the application stopped
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedImports() {
+        for (ImportJob job : importJobRepo.findAllByStatus(ImportStatus.RUNNING)) {
+            log.info("Resuming book import {} after row {}", job.getId(), job.getProcessedRows());
+            runInBackground(job.getId());
+        }
+    }
+
+    private void runInBackground(String jobId) {
+        if (!runningJobs.add(jobId)) {
+            return;
+        }
+
+        Thread.ofVirtual().name("book-import-" + jobId).start(() -> {
+            try {
+                runImport(jobId);
+            } finally {
+                runningJobs.remove(jobId);
+            }
+        });
+    }
+
+    private void runImport(String jobId) {
+        ImportJob job = importJobRepo.findById(jobId).orElseThrow();
+        Path file = Paths.get(job.getFilePath());
+
+        try (MappingIterator<Book> rows = openReader(file)) {
+            // Skip rows already committed before a crash or failure
+            long skipped = 0;
+            while (skipped < job.getProcessedRows() && rows.hasNextValue()) {
+                rows.nextValue();
+                skipped++;
+            }
+
+            List<Book> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNextValue()) {
+                chunk.add(rows.nextValue());
+                if (chunk.size() == chunkSize) {
+                    importChunk(jobId, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(jobId, chunk);
+            }
+
+            finish(jobId, ImportStatus.COMPLETED, null);
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            log.error("Book import {} failed", jobId, e);
+            finish(jobId, ImportStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void importChunk(String jobId, List<Book> rows) {
+        ImportJob progress = transactionTemplate.execute(status -> {
+            ImportJob job = importJobRepo.findById(jobId).orElseThrow();
+
+            List<Book> books = rows.stream()
+                    .map(row -> prepare(row, job.getUserEmail()))
+                    .filter(book -> book.getTitle() != null && !book.getTitle().isBlank() && book.getUserEmail() != null)
+                    .toList();
+
+            // Sequence ids + hibernate.jdbc.batch_size turn this into batched INSERTs
+            List<Book> saved = bookRepo.saveAllAndFlush(books);
+
+            // Embeddings are produced in batches by the outbox workers
+            embeddingOutboxService.enqueueAll(saved.stream().map(Book::getId).toList());
+
+            bookCacheService.evictBooks(List.of(), saved.stream().map(Book::getUserEmail).toList());
+
+            job.setProcessedRows(job.getProcessedRows() + rows.size());
+            job.setImportedBooks(job.getImportedBooks() + saved.size());
+            job.setUpdatedAt(Instant.now());
+            importJobRepo.saveAndFlush(job);
+
+            // Keep the persistence context from growing across chunks
+            entityManager.clear();
+            return job;
+        });
+
+        log.debug("Book import {}: {} rows processed", jobId, progress.getProcessedRows());
+    }
+
+    private Book prepare(Book row, String defaultEmail) {
+        row.setId(null);
+        row.setCoverKey(null);
+        row.setVersion(null);
+        if (row.getUserEmail() == null || row.getUserEmail().isBlank()) {
+            row.setUserEmail(defaultEmail);
+        }
+        return row;
+    }
+
+    private void finish(String jobId, ImportStatus status, String error) {
+        importJobRepo.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setError(error != null && error.length() > 2000 ? error.substring(0, 2000) : error);
+            job.setUpdatedAt(Instant.now());
+            importJobRepo.save(job);
+        });
+    }
+
+    private MappingIterator<Book> openReader(Path file) throws IOException {
+        if (isCsv(file.toString())) {
+            // CSV needs a header row, e.g. title,author,description,genre,pageCount,read,userEmail
+            CsvMapper csvMapper = new CsvMapper();
+            csvMapper.enable(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+            csvMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            return csvMapper.readerFor(Book.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(file.toFile());
+        }
+        // A top level JSON array is unwrapped automatically, NDJSON is read value by value
+        return objectMapper.readerFor(Book.class).readValues(file.toFile());
+    }
+
+    private boolean isCsv(String fileName) {
+        return fileName.toLowerCase().endsWith(".csv");
+    }
+}
@@ -1,34 +1,48 @@
 package com.telusko.aipoweredlibrarytrackerbackend.service;
 
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AiUnavailableException;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AudioRejectedException;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.InvalidImageException;
+import com.telusko.aipoweredlibrarytrackerbackend.exception.ResourceNotFoundException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiModelType;
 import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookListingVersion;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookPage;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookSummary;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BooksChangedEvent;
 import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Service
 public class BookService {
 
-    @Autowired
-    private BookRepo bookRepo;
+    private static final Logger log = LoggerFactory.getLogger(BookService.class);
 
     @Autowired
-    private VectorStore vectorStore;
+    private BookRepo bookRepo;
 
     @Autowired
     private AIImageGeneratorService aiImageGeneratorService;
@@ -37,23 +51,102 @@ public class BookService {
     private ChatClient chatClient;
 
     @Autowired
-    private OpenAiAudioTranscriptionModel aiAudioTranscriptionModel;
+    private VoiceTranscriptionService voiceTranscriptionService;
+
+    @Autowired
+    private PromptRegistry promptRegistry;
+
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
+    @Autowired
+    private RetrievalService retrievalService;
 
     @Autowired
-    private ResourceLoader resourceLoader;
+    private CoverStorageService coverStorageService;
+
+    @Autowired
+    private CoverImageService coverImageService;
+
+    @Autowired
+    private EmbeddingOutboxService embeddingOutboxService;
+
+    @Autowired
+    private VectorStoreMaintenanceService vectorStoreMaintenanceService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookCacheService bookCacheService;
+
+    @Autowired
+    private AiCallGuard aiCallGuard;
+
+    @Autowired
+    private AiMetrics aiMetrics;
+
+    // This bean through its proxy, so calls to the @Cacheable methods from inside the class hit the cache
+    @Lazy
+    @Autowired
+    private BookService self;
+
+    @Value("${book.listing.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${book.listing.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${book.search.limit:10}")
+    private int searchLimit;
+
+    @Value("${book.search.rerank:false}")
+    private boolean rerankByDefault;
 
 
     // Add or update book
-    public Book addBook(Book book, MultipartFile image) throws IOException {
+    @Transactional
+    public Book addBook(Book book, MultipartFile image) throws IOException, InvalidImageException {
         if (image != null && !image.isEmpty()) {
-            book.setImageName(image.getOriginalFilename());
-            book.setImageType(image.getContentType());
-            book.setCoverImage(image.getBytes());
+            storeCover(book, image);
+        } else if (!coverStorageService.exists(book.getCoverKey())) {
+            // Only keep a client supplied cover key (e.g. an AI generated cover) if it is really stored
+            book.setCoverKey(null);
         }
+        book.setEmbeddingHash(null);
+        book.setVersion(null);
 
         Book savedBook = bookRepo.save(book);
 
-        String contentToEmbed = """
+        // Embedding happens asynchronously, committed together with the book
+        embeddingOutboxService.enqueue(savedBook.getId());
+
+        bookCacheService.evictBooks(List.of(savedBook.getId()), List.of(savedBook.getUserEmail()));
+
+        return savedBook;
+    }
+
+    // Build the vector store document for a saved book; one document per book, addressed by its id
+    public Document toDocument(Book book) {
+        return new Document(
+                documentId(book.getId()),
+                embeddingContent(book),
+                Map.of("bookId", String.valueOf(book.getId()), "email", book.getUserEmail())
+        );
+    }
+
+    public static String documentId(Long bookId) {
+        return UUID.nameUUIDFromBytes(("book:" + bookId).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    // Changes whenever the embedded text or its metadata changes, so unchanged updates skip re-embedding
+    public String embeddingHash(Book book) {
+        String hashInput = embeddingContent(book) + "\n" + book.getUserEmail();
+        return DigestUtils.md5DigestAsHex(hashInput.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String embeddingContent(Book book) {
+        return """
                 Title: %s
                 Author: %s
                 Description: %s
@@ -68,16 +161,6 @@ public class BookService {
                 book.getPageCount(),
                 book.isRead() ? "Yes" : "No"
         );
-
-        Document document = new Document(
-                UUID.randomUUID().toString(),
-                contentToEmbed,
-                Map.of("bookId", String.valueOf(savedBook.getId()), "email", savedBook.getUserEmail())
-        );
-
-        vectorStore.add(List.of(document));
-
-        return savedBook;
     }
 
     // Generate description using AI
@@ -130,7 +213,8 @@ public class BookService {
 //        return aiImageGeneratorService.generateImage(imagePrompt);
 //    }
 
-    public Book generateCompleteBookDetails(String title) {
+    // Steps 1-3: metadata only, returned as soon as the chat model answers
+    public Book generateBookMetadata(String title) {
         try {
             // Step 1: Enhanced Prompt
             String prompt = """
@@ -170,10 +254,19 @@ public class BookService {
                     """.formatted(title, title);
 
             // Step 2: Call AI
-            Generation generation = Objects.requireNonNull(chatClient.prompt(prompt)
-                            .call()
-                            .chatResponse())
-                    .getResult();
+            StageTimer timer = aiMetrics.start("book-metadata");
+            ChatResponse response;
+            String outcome = "error";
+            try {
+                response = Objects.requireNonNull(timer.stage("generate", () -> chatClient.prompt(prompt)
+                        .call()
+                        .chatResponse()));
+                aiMetrics.recordUsage("book-metadata", response);
+                outcome = "success";
+            } finally {
+                aiMetrics.finish(timer, outcome);
+            }
+            Generation generation = response.getResult();
 
             // Step 3: Convert JSON to Book object
             BeanOutputConverter<Book> outputConverter = new BeanOutputConverter<>(
@@ -182,10 +275,19 @@ public class BookService {
             );
             assert generation.getOutput().getText() != null;
             Book aiBook = outputConverter.convert(generation.getOutput().getText());
-
-            // Step 4: Generate clean AI-based book cover
             assert aiBook != null;
+            return aiBook;
 
+        } catch (AiUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate accurate book details for: " + title, e);
+        }
+    }
+
+    // Step 4: Generate clean AI-based book cover for previously generated metadata
+    public Book generateBookCover(Book aiBook, String title) {
+        try {
             String imagePrompt = """
                     Create a visually appealing book cover.
                     
@@ -202,126 +304,197 @@ public class BookService {
 
             byte[] imageBytes = aiImageGeneratorService.generateImage(imagePrompt);
 
-            aiBook.setCoverImage(imageBytes);
+            if (imageBytes != null) {
+                aiBook.setCoverKey(coverStorageService.store(imageBytes));
+                coverImageService.generateVariantsAsync(aiBook.getCoverKey());
+            }
             aiBook.setImageType("image/png");
             aiBook.setImageName(title.replaceAll(" ", "_").toLowerCase() + ".png");
 
             return aiBook;
 
+        } catch (AiUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate accurate book details for: " + title, e);
         }
     }
 
 
-    public List<Book> searchByVoiceOrText(MultipartFile audio, String userQuery) {
+    // userEmail is optional; when given, only that user's books are searched.
+    // Each stage (upload, transcode, transcribe, embed, retrieve, fetch, rerank) is recorded on the timer.
+    public List<Book> searchByVoiceOrText(MultipartFile audio, String userQuery, String userEmail, Boolean rerank,
+                                          StageTimer timer) throws AudioRejectedException {
+        String outcome = "error";
         try {
-            // Load prompt template from classpath resource
-            String promptTemplate = Files.readString(
-                    resourceLoader.getResource("classpath:prompts/book-search-prompt.st")
-                            .getFile()
-                            .toPath()
-            );
-
             //Determine the search query
             String query = null;
 
             if (audio != null && !audio.isEmpty()) {
-                System.out.println("Audio coming!");
-                query = aiAudioTranscriptionModel.call(audio.getResource());
+                query = voiceTranscriptionService.transcribe(audio, timer);
             } else if (userQuery != null && !userQuery.trim().isEmpty()) {
                 query = userQuery;
+                timer.mark("upload");
             } else {
                 throw new IllegalArgumentException("No audio or text query provided.");
             }
 
-            System.out.println("Final Query: " + query);
-
-            // Fetch related context from vector store using semantic similarity
-            String context = fetchSemanticContext(query);
-
-            // Fill variables into the prompt template
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("userQuery", query);
-            variables.put("context", context);
-
-            // Create the full prompt using the template and variables
-            PromptTemplate template = PromptTemplate.builder()
-                    .template(promptTemplate)
-                    .variables(variables)
-                    .build();
-
-            Prompt prompt = new Prompt(template.createMessage());
+            String searchQuery = query;
+
+            // Rank with full-text + vector search fused in the database, no model call needed
+            List<Long> rankedIds = hybridSearchService.search(searchQuery, userEmail, searchLimit, timer);
+            aiMetrics.recordRetrieval(timer.operation(), rankedIds.size());
+
+            List<Book> books = timer.stage("fetch", () -> inRankOrder(rankedIds, bookRepo.findAllById(rankedIds)));
+            boolean useRerank = rerank != null ? rerank : rerankByDefault;
+            outcome = "success";
+            if (useRerank && !books.isEmpty()) {
+                List<Book> candidates = books;
+                List<Book> reranked = timer.stage("rerank", () -> rerankOrNull(searchQuery, candidates));
+                if (reranked != null) {
+                    books = reranked;
+                } else {
+                    outcome = "fallback";
+                }
+            }
+            return books;
+        } finally {
+            aiMetrics.finish(timer, outcome);
+        }
+    }
 
-            // Call the AI model to get generated product results
-            Generation generation = chatClient.prompt(prompt)
-                    .call()
-                    .chatResponse()
-                    .getResult();
+    // Degraded mode: while the chat model is failing there is no reranking (null), the caller keeps
+    // the hybrid ranking as is
+    private List<Book> rerankOrNull(String query, List<Book> candidates) {
+        if (!aiCallGuard.isAvailable(AiModelType.CHAT)) {
+            return null;
+        }
+        try {
+            return rerank(query, candidates);
+        } catch (AiUnavailableException e) {
+            log.warn("Rerank skipped: {}", e.getMessage());
+            return null;
+        }
+    }
 
-            // Convert the AI's textual output into a list of Product objects
-            BeanOutputConverter<List<Book>> outputConverter = new BeanOutputConverter<>(
-                    new ParameterizedTypeReference<>() {
-                    }
-            );
+    // Optional second stage: let the chat model pick and order the matching books among the candidates
+    private List<Book> rerank(String query, List<Book> candidates) {
+        // Fill variables into the prompt template
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userQuery", query);
+        variables.put("context", retrievalService.candidateContext("rerank", candidates));
+
+        // Render the preloaded template with the variables
+        Prompt prompt = promptRegistry.create("book-search-prompt", variables);
+
+        ChatResponse response = chatClient.prompt(prompt)
+                .call()
+                .chatResponse();
+        aiMetrics.recordUsage("rerank", response);
+        Generation generation = response.getResult();
+
+        // Convert the AI's textual output into a list of Book objects
+        BeanOutputConverter<List<Book>> outputConverter = new BeanOutputConverter<>(
+                new ParameterizedTypeReference<>() {
+                }
+        );
+        List<Book> aiBooks = outputConverter.convert(generation.getOutput().getText());
+
+        // Keep the model's order, but only for ids that really were candidates
+        Map<Long, Book> candidatesById = new HashMap<>();
+        candidates.forEach(book -> candidatesById.put(book.getId(), book));
+
+        return aiBooks.stream()
+                .map(Book::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(candidatesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-            List<Book> aiProducts = outputConverter.convert(generation.getOutput().getText());
+    private List<Book> inRankOrder(List<Long> rankedIds, List<Book> books) {
+        Map<Long, Book> byId = new HashMap<>();
+        books.forEach(book -> byId.put(book.getId(), book));
+        return rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-            // Extract valid product IDs (>0) from AI result
-            List<Long> bookIds = aiProducts.stream()
-                    .map(Book::getId)
-                    .filter(id -> id > 0)
-                    .toList();
 
-            return bookRepo.findAllById(bookIds);
+    public Book getBookWithCover(Long id) throws ResourceNotFoundException {
+        Book book = self.getBook(id);
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to process query", e);
-        } catch (NumberFormatException e) {
-            throw new RuntimeException("Invalid bookId format in vector metadata", e);
+        if (!coverStorageService.exists(book.getCoverKey())) {
+            throw new ResourceNotFoundException("Book with id " + id + " has no cover");
         }
+        return book;
     }
 
-    // Use vector store to find semantically similar documents based on query
-    private String fetchSemanticContext(String query) {
-        List<Document> documents = vectorStore.similaritySearch(
-                SearchRequest.builder()
-                        .query(query)
-                        .topK(5)                       // get top 5 most similar documents
-                        .similarityThreshold(0.7f)     // filter documents with similarity score below threshold
-                        .build()
-        );
+    @Cacheable(cacheNames = BookCacheService.BOOK, key = "#id")
+    public Book getBook(Long id) throws ResourceNotFoundException {
+        return bookRepo.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Book with id " + id + " does not exist"));
+    }
 
-        // Build a combined context string from document contents
-        StringBuilder contextBuilder = new StringBuilder();
-        for (Document doc : documents) {
-            contextBuilder.append(doc.getFormattedContent()).append("\n");
+    // Keyset paginated listing of book summaries, optionally for a single user
+    @Cacheable(cacheNames = BookCacheService.BOOK_PAGES,
+            key = "T(com.telusko.aipoweredlibrarytrackerbackend.service.BookCacheService).pageKey(#email, #after, #size)")
+    public BookPage getBookPage(String email, Long after, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        long afterId = after == null ? 0L : after;
+
+        // Fetch one extra row to know whether there is a next page without a count query
+        Limit limit = Limit.of(pageSize + 1);
+        List<BookSummary> books = email == null || email.isBlank()
+                ? bookRepo.findSummariesAfter(afterId, limit)
+                : bookRepo.findSummariesByUserEmailAfter(email, afterId, limit);
+
+        Long nextCursor = null;
+        if (books.size() > pageSize) {
+            books = books.subList(0, pageSize);
+            nextCursor = books.get(pageSize - 1).getId();
         }
-
-        return contextBuilder.toString();
+        return new BookPage(books, nextCursor);
     }
 
+    // ETag of the listings of one user (or all books without email), checked before a listing is loaded
+    public String listingEtag(String email) {
+        BookListingVersion version = email == null || email.isBlank()
+                ? bookRepo.findListingVersion()
+                : bookRepo.findListingVersionByUserEmail(email);
+        return version.etag();
+    }
 
+    @Cacheable(cacheNames = BookCacheService.BOOKS_BY_USER, key = "#email", condition = "#email != null")
     public List<Book> getAllBooks(String email) {
         return bookRepo.findAllByUserEmail(email);
     }
 
+    // The book's vector store document goes with it, in the same transaction
+    @Transactional
     public void deleteBook(Long id) {
+        bookRepo.findById(id).ifPresent(book ->
+                bookCacheService.evictBooks(List.of(id), List.of(book.getUserEmail())));
         bookRepo.deleteById(id);
+        vectorStoreMaintenanceService.deleteByBookIds(List.of(id));
+        eventPublisher.publishEvent(new BooksChangedEvent(List.of(id)));
     }
 
+    @Cacheable(cacheNames = BookCacheService.ALL_BOOKS, key = "'all'")
     public List<Book> fetchAllBooks() {
         return bookRepo.findAll();
     }
 
-    public Book updateBook(Book book, MultipartFile imageFile) {
+    @Transactional
+    public Book updateBook(Book book, MultipartFile imageFile) throws InvalidImageException {
         Book existedBook = bookRepo.findById(book.getId()).orElseThrow(() -> new RuntimeException("Book with id " + book.getId() + " does not exist"));
+        String previousEmail = existedBook.getUserEmail();
 
         try {
             if (imageFile != null && !imageFile.isEmpty()) {
-                existedBook.setImageName(imageFile.getOriginalFilename());
-                existedBook.setImageType(imageFile.getContentType());
-                existedBook.setCoverImage(imageFile.getBytes());
+                storeCover(existedBook, imageFile);
             }
 
             existedBook.setTitle(book.getTitle());
@@ -335,6 +508,27 @@ public class BookService {
             throw new RuntimeException("Failed to process query", e);
         }
 
-        return bookRepo.save(existedBook);
+        Book savedBook = bookRepo.save(existedBook);
+
+        // The book may have moved to another user, both users' listings change
+        bookCacheService.evictBooks(List.of(savedBook.getId()), List.of(previousEmail, savedBook.getUserEmail()));
+
+        // Only re-embed when the embedded fields actually changed
+        if (!embeddingHash(savedBook).equals(savedBook.getEmbeddingHash())) {
+            embeddingOutboxService.enqueue(savedBook.getId());
+        }
+
+        return savedBook;
+    }
+
+    // Validate the upload, store it and start its resized variants; the content type is the detected one
+    private void storeCover(Book book, MultipartFile image) throws IOException, InvalidImageException {
+        String imageType = coverImageService.validate(image);
+        book.setImageName(image.getOriginalFilename());
+        book.setImageType(imageType);
+        try (InputStream in = image.getInputStream()) {
+            book.setCoverKey(coverStorageService.store(in));
+        }
+        coverImageService.generateVariantsAsync(book.getCoverKey());
     }
 }
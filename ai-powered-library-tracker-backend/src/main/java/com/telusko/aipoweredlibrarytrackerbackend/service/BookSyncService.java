@@ -0,0 +1,96 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.SyncTokenExpiredException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookChanges;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Delta sync for clients that keep a local copy of the library.
+// A sync token is "<xmin>.<issued millis>": xmin is the oldest transaction still running when the
+// token was issued, so every change not yet seen has change_xid >= xmin. Changes committed around
+// the token boundary can be sent twice, never missed; clients upsert by id.
+// Tombstones are kept for book.sync.tombstone-retention, older tokens get 410 and do a full sync.
+@Service
+public class BookSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSyncService.class);
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${book.sync.tombstone-retention:P30D}")
+    private Duration tombstoneRetention;
+
+    public BookChanges getChanges(String since, String email) throws SyncTokenExpiredException {
+        boolean scoped = email != null && !email.isBlank();
+
+        // Taken before reading, so anything committed after this point is picked up by the next sync
+        long xmin = jdbcTemplate.queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+        String token = xmin + "." + Instant.now().toEpochMilli();
+
+        if (since == null || since.isBlank()) {
+            List<Book> books = scoped ? bookRepo.findAllByUserEmail(email) : bookRepo.findAll();
+            return new BookChanges(books, List.of(), token, true);
+        }
+
+        long sinceXid = parseToken(since);
+        List<Book> books = scoped
+                ? bookRepo.findChangedSinceByUserEmail(email, sinceXid)
+                : bookRepo.findChangedSince(sinceXid);
+
+        // A tombstone counts unless the book is back (moved back to this user, or only moved between users)
+        List<Long> deletedIds = scoped
+                ? jdbcTemplate.queryForList("""
+                        SELECT t.book_id FROM book_tombstone t
+                        WHERE t.user_email = ? AND t.change_xid >= ?
+                          AND NOT EXISTS (SELECT 1 FROM book b WHERE b.id = t.book_id AND b.user_email = t.user_email)
+                        """, Long.class, email, sinceXid)
+                : jdbcTemplate.queryForList("""
+                        SELECT DISTINCT t.book_id FROM book_tombstone t
+                        WHERE t.change_xid >= ?
+                          AND NOT EXISTS (SELECT 1 FROM book b WHERE b.id = t.book_id)
+                        """, Long.class, sinceXid);
+
+        return new BookChanges(books, deletedIds, token, false);
+    }
+
+    @Scheduled(fixedDelayString = "${book.sync.tombstone-purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        int purged = jdbcTemplate.update("DELETE FROM book_tombstone WHERE deleted_at < ?",
+                Timestamp.from(Instant.now().minus(tombstoneRetention)));
+        if (purged > 0) {
+            log.info("Purged {} book tombstones", purged);
+        }
+    }
+
+    private long parseToken(String token) throws SyncTokenExpiredException {
+        String[] parts = token.split("\\.");
+        if (parts.length != 2) {
+            throw new SyncTokenExpiredException("Invalid sync token, do a full sync");
+        }
+        try {
+            Instant issued = Instant.ofEpochMilli(Long.parseLong(parts[1]));
+            if (issued.isBefore(Instant.now().minus(tombstoneRetention))) {
+                throw new SyncTokenExpiredException("Sync token is older than " + tombstoneRetention + ", do a full sync");
+            }
+            return Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new SyncTokenExpiredException("Invalid sync token, do a full sync");
+        }
+    }
+}
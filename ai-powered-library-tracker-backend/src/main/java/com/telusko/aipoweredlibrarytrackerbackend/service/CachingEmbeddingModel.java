@@ -0,0 +1,180 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// EmbeddingModel decorator that caches embeddings by SHA-256(model + text).
+// Lookups go to a bounded in-memory LRU first, then to the embedding_cache table in Postgres;
+// only the remaining misses are sent to the real model, in a single request.
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final String defaultModelName;
+    private final Map<String, float[]> memoryCache;
+
+    private final Counter memoryHits;
+    private final Counter postgresHits;
+    private final Counter misses;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 String defaultModelName, int maxMemoryEntries) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultModelName = defaultModelName;
+
+        // Access ordered LinkedHashMap evicting the least recently used entry
+        this.memoryCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
+
+        // Hit rate = hits / (hits + misses), per tier
+        this.memoryHits = Counter.builder("embedding.cache.requests").tag("result", "memory-hit").register(meterRegistry);
+        this.postgresHits = Counter.builder("embedding.cache.requests").tag("result", "postgres-hit").register(meterRegistry);
+        this.misses = Counter.builder("embedding.cache.requests").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("embedding.cache.memory.size", memoryCache, Map::size);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        String modelName = request.getOptions() != null && request.getOptions().getModel() != null
+                ? request.getOptions().getModel()
+                : defaultModelName;
+
+        List<String> keys = texts.stream().map(text -> cacheKey(modelName, text)).toList();
+        float[][] vectors = new float[texts.size()][];
+
+        // Tier 1: memory
+        List<Integer> pending = new ArrayList<>();
+        synchronized (memoryCache) {
+            for (int i = 0; i < keys.size(); i++) {
+                vectors[i] = memoryCache.get(keys.get(i));
+                if (vectors[i] == null) {
+                    pending.add(i);
+                }
+            }
+        }
+        memoryHits.increment(texts.size() - pending.size());
+
+        // Tier 2: Postgres
+        if (!pending.isEmpty()) {
+            Map<String, float[]> stored = loadStored(pending.stream().map(keys::get).distinct().toList());
+            List<Integer> stillMissing = new ArrayList<>();
+            for (int i : pending) {
+                vectors[i] = stored.get(keys.get(i));
+                if (vectors[i] == null) {
+                    stillMissing.add(i);
+                }
+            }
+            postgresHits.increment(pending.size() - stillMissing.size());
+            remember(stored);
+            pending = stillMissing;
+        }
+
+        // Tier 3: the model itself, one request for all misses
+        if (!pending.isEmpty()) {
+            misses.increment(pending.size());
+
+            List<String> missingTexts = pending.stream().map(texts::get).toList();
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(missingTexts, request.getOptions()));
+
+            Map<String, float[]> computed = new HashMap<>();
+            List<Embedding> results = response.getResults();
+            for (int j = 0; j < results.size(); j++) {
+                int i = pending.get(j);
+                vectors[i] = results.get(j).getOutput();
+                computed.put(keys.get(i), vectors[i]);
+            }
+            store(modelName, computed);
+            remember(computed);
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    // Through call(), so documents are cached and counted like texts
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private Map<String, float[]> loadStored(List<String> keys) {
+        Map<String, float[]> stored = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT cache_key, embedding FROM embedding_cache WHERE cache_key = ANY(?)",
+                rs -> {
+                    stored.put(rs.getString(1), fromBytes(rs.getBytes(2)));
+                },
+                (Object) keys.toArray(String[]::new));
+        return stored;
+    }
+
+    private void store(String modelName, Map<String, float[]> computed) {
+        List<Object[]> rows = computed.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), modelName, toBytes(entry.getValue())})
+                .toList();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO embedding_cache (cache_key, model, embedding) VALUES (?, ?, ?) ON CONFLICT (cache_key) DO NOTHING",
+                rows);
+    }
+
+    private void remember(Map<String, float[]> entries) {
+        synchronized (memoryCache) {
+            memoryCache.putAll(entries);
+        }
+    }
+
+    private String cacheKey(String modelName, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] fromBytes(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
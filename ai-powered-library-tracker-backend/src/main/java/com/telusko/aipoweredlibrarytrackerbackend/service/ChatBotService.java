@@ -1,79 +1,168 @@
 package com.telusko.aipoweredlibrarytrackerbackend.service;
 
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AiUnavailableException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiModelType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @Service
 public class ChatBotService {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatBotService.class);
+
     @Autowired
     private ChatClient chatClient;
 
     @Autowired
-    private VectorStore vectorStore;
+    private RetrievalService retrievalService;
+
+    @Autowired
+    private PromptRegistry promptRegistry;
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Autowired
+    private SemanticResponseCache semanticResponseCache;
 
     @Autowired
-    private ResourceLoader resourceLoader;
+    private AiCallGuard aiCallGuard;
 
-    public String getBotResponse(String userQuery) {
+    @Autowired
+    private AiMetrics aiMetrics;
+
+    // Everything needed to answer a query: either a cached answer or the prompt to send
+    private record PreparedQuery(List<Document> documents, float[] queryVector, String cachedAnswer, Prompt prompt) {
+    }
+
+    // userEmail is optional; when given, only that user's books are used as context
+    public String getBotResponse(String userQuery, String userEmail) {
+        StageTimer timer = aiMetrics.start("chat");
+        String outcome = "error";
         try {
-            // Load prompt template from classpath resource
-            String promptTemplate = Files.readString(
-                    resourceLoader.getResource("classpath:prompts/chatbot-rag-prompt.st")
-                            .getFile()
-                            .toPath()
-            );
-
-            // Fetch similar content from the vector store using semantic search
-            String context = fetchSemanticContext(userQuery);
-
-            // Fill template variables with user query and relevant context
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("userQuery", userQuery);
-            variables.put("context", context);
-
-            // Create a final prompt using the template and variables
-            PromptTemplate prompt = PromptTemplate.builder()
-                    .template(promptTemplate)
-                    .variables(variables)
-                    .build();
+            PreparedQuery prepared = prepareQuery(userQuery, userEmail, timer);
+            if (prepared.cachedAnswer() != null) {
+                outcome = "cached";
+                return prepared.cachedAnswer();
+            }
+
+            if (!aiCallGuard.isAvailable(AiModelType.CHAT)) {
+                outcome = "fallback";
+                return fallbackAnswer(prepared.documents());
+            }
 
             // Call the chat model and return the generated response
-            return chatClient.prompt(prompt.create()).call().content();
+            String answer;
+            try {
+                ChatResponse response = timer.stage("generate", () -> chatClient.prompt(prepared.prompt()).call().chatResponse());
+                aiMetrics.recordUsage("chat", response);
+                answer = response.getResult().getOutput().getText();
+            } catch (AiUnavailableException e) {
+                log.warn("Chat fallback: {}", e.getMessage());
+                outcome = "fallback";
+                return fallbackAnswer(prepared.documents());
+            }
+
+            semanticResponseCache.put(prepared.queryVector(), prepared.documents(), answer);
+            outcome = "success";
+            return answer;
+        } finally {
+            aiMetrics.finish(timer, outcome);
+        }
+    }
 
-        } catch (IOException e) {
-            return "Error: " + e.getMessage();
+    // Same as getBotResponse, but emits the answer chunk by chunk as the model produces it
+    public Flux<String> streamBotResponse(String userQuery, String userEmail) {
+        StageTimer timer = aiMetrics.start("chat-stream");
+        PreparedQuery prepared = prepareQuery(userQuery, userEmail, timer);
+
+        if (prepared.cachedAnswer() != null) {
+            aiMetrics.finish(timer, "cached");
+            return Flux.just(prepared.cachedAnswer());
+        }
+        if (!aiCallGuard.isAvailable(AiModelType.CHAT)) {
+            aiMetrics.finish(timer, "fallback");
+            return Flux.just(fallbackAnswer(prepared.documents()));
         }
+
+        // Collect the chunks so the complete answer can still be cached
+        StringBuilder answer = new StringBuilder();
+        AtomicBoolean started = new AtomicBoolean();
+        return chatClient.prompt(prepared.prompt())
+                .stream()
+                .chatResponse()
+                // The last chunk carries the token usage and no text
+                .doOnNext(response -> aiMetrics.recordUsage("chat-stream", response))
+                .mapNotNull(response -> response.getResult() != null ? response.getResult().getOutput().getText() : null)
+                .doOnNext(chunk -> {
+                    if (!started.getAndSet(true)) {
+                        timer.mark("first-token");
+                    }
+                    answer.append(chunk);
+                })
+                .doOnComplete(() -> {
+                    timer.mark("generate");
+                    aiMetrics.finish(timer);
+                    semanticResponseCache.put(prepared.queryVector(), prepared.documents(), answer.toString());
+                })
+                // Fall back only if nothing was sent yet; a stream that breaks off midway just ends with the error
+                .onErrorResume(e -> e instanceof AiUnavailableException && !started.get(), e -> {
+                    aiMetrics.finish(timer, "fallback");
+                    return Flux.just(fallbackAnswer(prepared.documents()));
+                })
+                .doOnError(e -> aiMetrics.finish(timer, "error"));
     }
 
-    // Use vector store to find semantically similar documents based on query
-    private String fetchSemanticContext(String query) {
-        List<Document> documents = vectorStore.similaritySearch(
-                SearchRequest.builder()
-                        .query(query)
-                        .topK(5)                       // get top 5 most similar documents
-                        .similarityThreshold(0.7f)     // filter documents with similarity score below threshold
-                        .build()
-        );
-
-        // Build a combined context string from document contents
-        StringBuilder contextBuilder = new StringBuilder();
-        for (Document doc : documents) {
-            contextBuilder.append(doc.getFormattedContent()).append("\n");
+    // Degraded answer while the chat model is unavailable: the books the vector search found, no generated text
+    private String fallbackAnswer(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return "The assistant is unavailable right now and no matching books were found. Please try again later.";
         }
+        String books = documents.stream()
+                .map(doc -> "- " + doc.getText().lines().limit(2).collect(Collectors.joining(", ")))
+                .collect(Collectors.joining("\n"));
+        return "The assistant is unavailable right now. These books match your question:\n" + books;
+    }
+
+    private PreparedQuery prepareQuery(String userQuery, String userEmail, StageTimer timer) {
+        // Embed first so the vector search below gets the query embedding from the embedding cache
+        // and the two stages are timed separately
+        float[] queryVector = timer.stage("embed", () -> embeddingModel.embed(userQuery));
+
+        // Fetch similar content from the vector store using semantic search
+        List<Document> documents = timer.stage("retrieve", () -> retrievalService.retrieve(userQuery, userEmail));
+        aiMetrics.recordRetrieval(timer.operation(), documents);
+
+        // Reuse the answer of an equivalent earlier question over the same context
+        String cachedAnswer = semanticResponseCache.lookup(queryVector, documents).orElse(null);
+        if (cachedAnswer != null) {
+            return new PreparedQuery(documents, queryVector, cachedAnswer, null);
+        }
+
+        String context = timer.stage("context", () -> retrievalService.chatContext(timer.operation(), documents));
+
+        // Fill template variables with user query and relevant context
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userQuery", userQuery);
+        variables.put("context", context);
+
+        // Render the preloaded template with the variables
+        Prompt prompt = promptRegistry.create("chatbot-rag-prompt", variables);
 
-        return contextBuilder.toString();
+        return new PreparedQuery(documents, queryVector, null, prompt);
     }
 }
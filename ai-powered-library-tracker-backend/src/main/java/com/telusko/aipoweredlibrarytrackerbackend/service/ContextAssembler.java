@@ -0,0 +1,180 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Renders retrieved books as prompt context: one compact line per book instead of the multi-line
+// embedding text with its metadata dump, descriptions cut at a word boundary, and lines added in
+// rank order only while they fit in the token budget (counted with a local tokenizer, no API call).
+// Plain class so the benchmarks can use it without a Spring context; RetrievalService holds the
+// configured instances.
+public class ContextAssembler {
+
+    // Rendered context with its size, for the book.rag.context.* metrics
+    public record Context(String text, int tokens, int books) {
+    }
+
+    private final TokenCountEstimator tokenizer;
+    private final int maxTokens;
+    private final int descriptionChars;
+
+    public ContextAssembler(TokenCountEstimator tokenizer, int maxTokens, int descriptionChars) {
+        this.tokenizer = tokenizer;
+        this.maxTokens = maxTokens;
+        this.descriptionChars = descriptionChars;
+    }
+
+    // Chat context. The same book added by several users (same title and author after normalizing
+    // case, punctuation and spacing) appears once, with the number of users who added it. Emails never
+    // go into the prompt.
+    public Context chatContext(List<Book> books) {
+        Map<String, List<Book>> distinct = new LinkedHashMap<>();
+        for (Book book : books) {
+            distinct.computeIfAbsent(dedupKey(book), key -> new ArrayList<>()).add(book);
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (List<Book> copies : distinct.values()) {
+            lines.add(chatLine(copies));
+        }
+        return withinBudget(lines);
+    }
+
+    // Rerank context: every candidate with the id the model answers with, no merging (ids must survive)
+    public Context candidateContext(List<Book> candidates) {
+        List<String> lines = new ArrayList<>();
+        for (Book book : candidates) {
+            lines.add("Id: " + book.getId() + " | " + summary(book));
+        }
+        return withinBudget(lines);
+    }
+
+    // Keep hits (sorted by score, best first) until the score falls off: a gap of more than maxGap to
+    // the previous hit, or more than maxDrop below the best one. At least minK hits are kept.
+    // Hits without a score are kept, nothing can be said about them.
+    public static List<Document> adaptiveTopK(List<Document> hits, int minK, double maxGap, double maxDrop) {
+        if (hits.size() <= minK || hits.get(0).getScore() == null) {
+            return hits;
+        }
+        double best = hits.get(0).getScore();
+        double previous = best;
+        int keep = 1;
+        for (; keep < hits.size(); keep++) {
+            Double score = hits.get(keep).getScore();
+            if (score == null) {
+                continue;
+            }
+            if (keep >= minK && (previous - score > maxGap || best - score > maxDrop)) {
+                break;
+            }
+            previous = score;
+        }
+        return hits.subList(0, keep);
+    }
+
+    private Context withinBudget(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        int tokens = 0;
+        int included = 0;
+        for (String line : lines) {
+            int lineTokens = tokenizer.estimate(line) + 1;  // + the newline
+            // The first line always goes in, a context with nothing in it helps nobody
+            if (included > 0 && tokens + lineTokens > maxTokens) {
+                break;
+            }
+            text.append(line).append('\n');
+            tokens += lineTokens;
+            included++;
+        }
+        return new Context(text.toString(), tokens, included);
+    }
+
+    private String chatLine(List<Book> copies) {
+        Book book = copies.get(0);
+        StringBuilder line = new StringBuilder("- ").append(summary(book));
+
+        Set<String> addedBy = new HashSet<>();
+        copies.forEach(copy -> {
+            if (hasText(copy.getUserEmail())) {
+                addedBy.add(copy.getUserEmail());
+            }
+        });
+        if (addedBy.size() > 1) {
+            line.append(" | added by ").append(addedBy.size()).append(" users");
+        }
+        // Read status is per user, only meaningful for a single copy
+        if (copies.size() == 1 && book.isRead()) {
+            line.append(" | read");
+        }
+
+        String description = shorten(book.getDescription());
+        if (!description.isEmpty()) {
+            line.append(" | ").append(description);
+        }
+        return line.toString();
+    }
+
+    // "Title by Author | Genre | 320 pages", leaving out unknown fields
+    private String summary(Book book) {
+        StringBuilder summary = new StringBuilder(valueOr(book.getTitle(), "Untitled"));
+        if (known(book.getAuthor())) {
+            summary.append(" by ").append(book.getAuthor().trim());
+        }
+        if (known(book.getGenre())) {
+            summary.append(" | ").append(book.getGenre().trim());
+        }
+        if (book.getPageCount() > 0) {
+            summary.append(" | ").append(book.getPageCount()).append(" pages");
+        }
+        return summary.toString();
+    }
+
+    private String shorten(String description) {
+        if (!known(description)) {
+            return "";
+        }
+        String text = description.strip().replaceAll("\\s+", " ");
+        if (text.length() <= descriptionChars) {
+            return text;
+        }
+        int cut = text.lastIndexOf(' ', descriptionChars);
+        return text.substring(0, cut > descriptionChars / 2 ? cut : descriptionChars) + "...";
+    }
+
+    private static String dedupKey(Book book) {
+        return normalize(book.getTitle()) + "|" + normalize(book.getAuthor());
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim()
+                .replaceFirst("^(the|a|an) ", "");
+    }
+
+    // The metadata generator answers "Unknown" for fields it could not verify
+    private static boolean known(String value) {
+        return hasText(value) && !value.trim().equalsIgnoreCase("unknown")
+                && !value.trim().equalsIgnoreCase("No official description available.");
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String valueOr(String value, String fallback) {
+        return hasText(value) ? value.trim() : fallback;
+    }
+}
@@ -0,0 +1,363 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.InvalidImageException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CoverSize;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+// Cover image pipeline. Uploads are validated on the request thread from the image header only
+// (supported format, pixel count), then every cover gets resized variants (see CoverSize) as JPEG
+// and, when the WebP encoder is available, WebP. Variants are re-encoded from the decoded pixels,
+// so EXIF/XMP metadata of the original never reaches them. They are generated on a small worker
+// pool after the upload or AI generation, and lazily for covers stored before the pipeline existed.
+// The original is kept in the cover store as the source of the variants only; it may carry camera
+// and GPS metadata, so it is never served as uploaded.
+@Service
+public class CoverImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverImageService.class);
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp", "image/webp");
+    private static final String JPEG = "jpg";
+    private static final String WEBP = "webp";
+    // Stand-in for the original while the variants are pending
+    private static final String STRIPPED = "original.jpg";
+
+    @Autowired
+    private CoverStorageService coverStorageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${book.covers.max-size:10MB}")
+    private DataSize maxSize;
+
+    @Value("${book.covers.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${book.covers.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${book.covers.webp-quality:0.80}")
+    private float webpQuality;
+
+    @Value("${book.covers.workers:2}")
+    private int workers;
+
+    // Resizing is CPU bound: a few platform threads, not a thread per cover
+    private ExecutorService executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Covers that could not be decoded (e.g. CMYK JPEGs); not served, and not retried on every request
+    private final Set<String> undecodable = ConcurrentHashMap.newKeySet();
+    // Cleared the first time the native WebP encoder fails, JPEG variants are still produced
+    private volatile boolean webpAvailable = true;
+
+    @PostConstruct
+    public void init() {
+        // Decode and encode in memory instead of through an ImageIO temp file per image
+        ImageIO.setUseCache(false);
+        executor = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("cover-variants-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Content type of the upload as detected from its bytes (the client's claim is not trusted)
+    public String validate(MultipartFile image) throws InvalidImageException, IOException {
+        if (image.getSize() > maxSize.toBytes()) {
+            throw new InvalidImageException("Cover image is larger than " + maxSize);
+        }
+        try (InputStream in = image.getInputStream()) {
+            return validate(in);
+        }
+    }
+
+    public String validate(byte[] image) throws InvalidImageException, IOException {
+        return validate(new ByteArrayInputStream(image));
+    }
+
+    private String validate(InputStream in) throws InvalidImageException, IOException {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = reader(imageIn);
+            if (reader == null) {
+                throw new InvalidImageException("Cover is not a supported image");
+            }
+            try {
+                String type = reader.getOriginatingProvider().getMIMETypes()[0];
+                if (!SUPPORTED_TYPES.contains(type)) {
+                    throw new InvalidImageException("Unsupported cover image type " + type);
+                }
+                // Reads the header only; a tiny file can still declare a huge canvas (decompression bomb)
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new InvalidImageException("Cover image has more than " + maxPixels + " pixels");
+                }
+                return type;
+            } catch (IOException e) {
+                throw new InvalidImageException("Cover image is corrupt: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Queue variant generation for a stored cover; no-op when it is done, running or impossible
+    public void generateVariantsAsync(String key) {
+        if (!coverStorageService.exists(key) || undecodable.contains(key) || variantsExist(key) || !inFlight.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(key);
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+        }
+    }
+
+    // The variant to send to a client, or null while it is not generated yet (generation is started then)
+    public Path findVariant(String key, CoverSize size, boolean acceptsWebp) {
+        if (acceptsWebp) {
+            Path webp = coverStorageService.resolveVariant(key, variantName(size, WEBP));
+            if (Files.exists(webp)) {
+                return webp;
+            }
+        }
+        Path jpeg = coverStorageService.resolveVariant(key, variantName(size, JPEG));
+        if (Files.exists(jpeg)) {
+            return jpeg;
+        }
+        generateVariantsAsync(key);
+        return null;
+    }
+
+    // A metadata-free JPEG of the original (at most full size), made on the request thread the first
+    // time a cover is asked for before its variants exist; null when the original cannot be decoded
+    public Path findStrippedOriginal(String key) throws IOException {
+        Path stripped = coverStorageService.resolveVariant(key, STRIPPED);
+        if (Files.exists(stripped)) {
+            return stripped;
+        }
+        if (undecodable.contains(key)) {
+            return null;
+        }
+        BufferedImage image = decode(coverStorageService.resolve(key));
+        if (image == null) {
+            undecodable.add(key);
+            return null;
+        }
+        coverStorageService.storeVariant(key, STRIPPED, encode(resize(image, CoverSize.FULL), "jpeg", jpegQuality));
+        return stripped;
+    }
+
+    // The full size JPEG is written last, so its presence means all variants are there
+    private boolean variantsExist(String key) {
+        return Files.exists(coverStorageService.resolveVariant(key, variantName(CoverSize.FULL, JPEG)));
+    }
+
+    private void generateVariants(String key) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            BufferedImage image = decode(coverStorageService.resolve(key));
+            if (image == null) {
+                undecodable.add(key);
+                outcome = "undecodable";
+                return;
+            }
+
+            // Largest first, each size scaled down from the previous one
+            Map<CoverSize, BufferedImage> variants = new LinkedHashMap<>();
+            for (CoverSize size : List.of(CoverSize.FULL, CoverSize.CARD, CoverSize.THUMBNAIL)) {
+                image = resize(image, size);
+                variants.put(size, image);
+            }
+
+            for (CoverSize size : List.of(CoverSize.THUMBNAIL, CoverSize.CARD, CoverSize.FULL)) {
+                BufferedImage variant = variants.get(size);
+                if (webpAvailable) {
+                    byte[] webp = encodeWebp(variant);
+                    if (webp != null) {
+                        coverStorageService.storeVariant(key, variantName(size, WEBP), webp);
+                    }
+                }
+                coverStorageService.storeVariant(key, variantName(size, JPEG), encode(variant, "jpeg", jpegQuality));
+            }
+        } catch (IOException | RuntimeException e) {
+            outcome = "error";
+            log.warn("Could not create variants of cover {}", key, e);
+        } finally {
+            sample.stop(Timer.builder("book.cover.variants")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    // Decode straight to (about) the largest variant size: images over twice that size are subsampled
+    // while reading, which saves most of the decode time and memory of large photos
+    private BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = reader(imageIn);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                int subsampling = Math.max(1, Math.min(
+                        reader.getWidth(0) / (2 * CoverSize.FULL.maxWidth()),
+                        reader.getHeight(0) / (2 * CoverSize.FULL.maxHeight())));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return opaque(reader.read(0, param));
+            } catch (IOException e) {
+                log.info("Cover {} cannot be decoded: {}", file.getFileName(), e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fit into the size's box keeping the aspect ratio. Halving steps before the final bicubic pass
+    // keep large reductions from aliasing.
+    private BufferedImage resize(BufferedImage image, CoverSize size) {
+        double scale = Math.min(1.0, Math.min(
+                (double) size.maxWidth() / image.getWidth(),
+                (double) size.maxHeight() / image.getHeight()));
+        if (scale == 1.0) {
+            return image;
+        }
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        return draw(current, targetWidth, targetHeight, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    private BufferedImage draw(BufferedImage image, int width, int height, Object interpolation) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // JPEG has no alpha channel: transparent covers are flattened onto white
+    private BufferedImage opaque(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage target = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // The WebP writer is a native library (webp-imageio); if it cannot load on this platform, skip WebP
+    private byte[] encodeWebp(BufferedImage image) throws IOException {
+        try {
+            return encode(image, "webp", webpQuality);
+        } catch (LinkageError | IllegalStateException e) {
+            webpAvailable = false;
+            log.warn("WebP encoder unavailable ({}), producing JPEG cover variants only", e.toString());
+            return null;
+        }
+    }
+
+    // Written without the source's metadata: only the pixels go into the new file
+    private byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalStateException("No " + format + " image writer");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (param.getCompressionTypes() != null) {
+                // "JPEG" for JPEG, "Lossy" for WebP
+                param.setCompressionType(param.getCompressionTypes()[0]);
+            }
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private ImageReader reader(ImageInputStream imageIn) {
+        if (imageIn == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(imageIn, true, true);
+        return reader;
+    }
+
+    private static String variantName(CoverSize size, String extension) {
+        return size.param() + "." + extension;
+    }
+}
@@ -0,0 +1,112 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+// Content-addressed cover store on the local filesystem.
+// Covers are keyed by the SHA-256 of their bytes, so identical uploads are stored once.
+@Service
+public class CoverStorageService {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${book.covers.directory:data/covers}")
+    private String coversDirectory;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(coversDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    // Stream the cover to a temp file while hashing it, then move it under its content key
+    public String store(InputStream in) throws IOException {
+        Path tempFile = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(tempFile)) {
+                digestIn.transferTo(out);
+            }
+
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(key);
+
+            // Same bytes already stored, nothing to do
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // A concurrent upload stored the same content first
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public String store(byte[] bytes) throws IOException {
+        return store(new ByteArrayInputStream(bytes));
+    }
+
+    // Covers are sharded by the first two hex chars to keep directories small
+    public Path resolve(String key) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("Invalid cover key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    // Derived files of a cover (e.g. "card.webp") live next to it: <key>-<variant>
+    public Path resolveVariant(String key, String variant) {
+        return resolve(key).resolveSibling(key + "-" + variant);
+    }
+
+    // Write a derived file through a temp file, so readers never see a partial one
+    public void storeVariant(String key, String variant, byte[] bytes) throws IOException {
+        Path target = resolveVariant(key, variant);
+        Path tempFile = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            Files.write(tempFile, bytes);
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public boolean exists(String key) {
+        return isValidKey(key) && Files.exists(resolve(key));
+    }
+
+    private boolean isValidKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.EmbeddingLag;
+import com.telusko.aipoweredlibrarytrackerbackend.model.EmbeddingOutbox;
+import com.telusko.aipoweredlibrarytrackerbackend.model.OutboxStatus;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.EmbeddingOutboxRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Write side of the embedding outbox: callers enqueue inside their own transaction,
+// EmbeddingOutboxWorker embeds the books later
+@Service
+public class EmbeddingOutboxService {
+
+    @Autowired
+    private EmbeddingOutboxRepo embeddingOutboxRepo;
+
+    public void enqueue(Long bookId) {
+        enqueueAll(List.of(bookId));
+    }
+
+    public void enqueueAll(List<Long> bookIds) {
+        Instant now = Instant.now();
+        List<EmbeddingOutbox> entries = bookIds.stream()
+                .map(bookId -> new EmbeddingOutbox(null, bookId, OutboxStatus.PENDING, 0, now, null, now))
+                .toList();
+        embeddingOutboxRepo.saveAll(entries);
+    }
+
+    public EmbeddingLag getLag() {
+        long pending = embeddingOutboxRepo.countByStatus(OutboxStatus.PENDING);
+        long dead = embeddingOutboxRepo.countByStatus(OutboxStatus.DEAD);
+        long oldestAge = embeddingOutboxRepo.findFirstByStatusOrderByCreatedAtAsc(OutboxStatus.PENDING)
+                .map(entry -> Duration.between(entry.getCreatedAt(), Instant.now()).toSeconds())
+                .orElse(0L);
+        return new EmbeddingLag(pending, dead, oldestAge);
+    }
+
+    @Transactional
+    public int requeueDead() {
+        return embeddingOutboxRepo.requeueDead(Instant.now());
+    }
+}
@@ -0,0 +1,234 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BooksChangedEvent;
+import com.telusko.aipoweredlibrarytrackerbackend.model.EmbeddingOutbox;
+import com.telusko.aipoweredlibrarytrackerbackend.model.OutboxStatus;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.EmbeddingOutboxRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Pool of background workers draining the embedding outbox in batches, in three steps:
+// 1. claim: a short transaction picks due rows with FOR UPDATE SKIP LOCKED (plus the other due rows of
+//    the same books, so each book is embedded once) and leases them for lease-ms;
+// 2. embed: the remote embedding call runs outside any transaction;
+// 3. write: a second transaction locks the book rows, skips books changed since step 2 (their newer
+//    outbox row embeds them again), upserts the documents with the step 2 vectors and deletes the
+//    claimed rows. No model call happens while the book rows are locked.
+// Failed batches are retried with exponential backoff and dead-lettered after max-attempts.
+@Service
+public class EmbeddingOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingOutboxWorker.class);
+
+    @Autowired
+    private EmbeddingOutboxRepo embeddingOutboxRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private BookService bookService;
+
+    // The caching model, so texts embedded before are not sent to the model again
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Autowired
+    private VectorStoreMaintenanceService vectorStoreMaintenanceService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${book.embedding.outbox.workers:2}")
+    private int workers;
+
+    @Value("${book.embedding.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${book.embedding.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${book.embedding.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${book.embedding.outbox.backoff-base-ms:2000}")
+    private long backoffBaseMs;
+
+    @Value("${book.embedding.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${book.embedding.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    private volatile boolean running;
+
+    // A book as it was embedded in step 2
+    private record EmbeddedBook(String hash, Document document, float[] embedding) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread.ofVirtual().name("embedding-outbox-" + i).start(this::pollLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            int processed = 0;
+            try {
+                processed = drainBatch();
+            } catch (Exception e) {
+                log.error("Embedding outbox worker error", e);
+            }
+
+            // Keep draining while there is work, otherwise wait for the next poll
+            if (processed == 0) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // One claim / embed / write round, returns the number of outbox rows handled; package-private for tests
+    int drainBatch() {
+        List<Long> claimedIds = new ArrayList<>();
+        try {
+            List<Long> bookIds = transactionTemplate.execute(status -> claim(claimedIds));
+            if (claimedIds.isEmpty()) {
+                return 0;
+            }
+
+            // Books deleted in the meantime simply drop out of the batch
+            List<Book> books = bookRepo.findAllById(bookIds);
+            Map<Long, EmbeddedBook> embedded = new LinkedHashMap<>();
+            if (!books.isEmpty()) {
+                List<Document> documents = books.stream().map(bookService::toDocument).toList();
+                List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+                for (int i = 0; i < books.size(); i++) {
+                    Book book = books.get(i);
+                    embedded.put(book.getId(),
+                            new EmbeddedBook(bookService.embeddingHash(book), documents.get(i), embeddings.get(i)));
+                }
+            }
+
+            List<Long> embeddedBookIds = transactionTemplate.execute(status -> write(embedded, claimedIds));
+            if (embeddedBookIds != null && !embeddedBookIds.isEmpty()) {
+                eventPublisher.publishEvent(new BooksChangedEvent(embeddedBookIds));
+            }
+            return claimedIds.size();
+        } catch (Exception e) {
+            // Nothing was written for the batch; record the failure, which also ends the lease
+            recordFailure(claimedIds, e);
+            return 0;
+        }
+    }
+
+    // Step 1, in a transaction: claim and lease a batch, returns the distinct book ids
+    private List<Long> claim(List<Long> claimedIds) {
+        Instant now = Instant.now();
+        List<EmbeddingOutbox> batch = embeddingOutboxRepo.claimBatch(now, batchSize);
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<Long> bookIds = batch.stream().map(EmbeddingOutbox::getBookId).distinct().toList();
+
+        Set<Long> ids = new LinkedHashSet<>();
+        batch.forEach(entry -> ids.add(entry.getId()));
+        embeddingOutboxRepo.claimForBooks(bookIds, now).forEach(entry -> ids.add(entry.getId()));
+        claimedIds.addAll(ids);
+
+        embeddingOutboxRepo.lease(claimedIds, now.plus(Duration.ofMillis(leaseMs)));
+        return bookIds;
+    }
+
+    // Step 3, in a transaction: write the books that still match what was embedded, returns their ids.
+    // The book rows stay locked until commit, so a concurrent worker holding an older state of the same
+    // book sees the newer hash and skips it instead of overwriting the newer embedding.
+    private List<Long> write(Map<Long, EmbeddedBook> embedded, List<Long> claimedIds) {
+        List<Long> embeddedBookIds = new ArrayList<>();
+        if (!embedded.isEmpty()) {
+            List<Long> ids = bookRepo.lockAllById(new ArrayList<>(embedded.keySet())).stream()
+                    .filter(book -> embedded.get(book.getId()).hash().equals(bookService.embeddingHash(book)))
+                    .map(Book::getId)
+                    .toList();
+
+            if (!ids.isEmpty()) {
+                List<EmbeddedBook> current = ids.stream().map(embedded::get).toList();
+                // Deterministic ids make the upsert replace a book's document; drop legacy random-id copies first
+                vectorStoreMaintenanceService.deleteStaleDocuments(ids);
+                vectorStoreMaintenanceService.upsert(current.stream().map(EmbeddedBook::document).toList(),
+                        current.stream().map(EmbeddedBook::embedding).toList());
+                for (Long id : ids) {
+                    bookRepo.updateEmbeddingHash(id, embedded.get(id).hash());
+                }
+                embeddedBookIds.addAll(ids);
+            }
+        }
+
+        embeddingOutboxRepo.deleteAllByIdInBatch(claimedIds);
+        return embeddedBookIds;
+    }
+
+    private void recordFailure(List<Long> outboxIds, Exception error) {
+        if (outboxIds.isEmpty()) {
+            log.error("Embedding outbox worker error", error);
+            return;
+        }
+
+        String message = error.getMessage() != null && error.getMessage().length() > 2000
+                ? error.getMessage().substring(0, 2000)
+                : error.getMessage();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (EmbeddingOutbox entry : embeddingOutboxRepo.findAllById(outboxIds)) {
+                int attempts = entry.getAttempts() + 1;
+                entry.setAttempts(attempts);
+                entry.setLastError(message);
+
+                if (attempts >= maxAttempts) {
+                    entry.setStatus(OutboxStatus.DEAD);
+                } else {
+                    long backoff = Math.min(maxBackoffMs, backoffBaseMs * (1L << Math.min(attempts - 1, 20)));
+                    entry.setNextAttemptAt(Instant.now().plus(Duration.ofMillis(backoff)));
+                }
+            }
+        });
+
+        log.warn("Embedding batch of {} books failed: {}", outboxIds.size(), message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiModelType;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+// ChatModel decorator: blocking and streaming calls go through the chat bulkhead, breaker and time limit
+public class GuardedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final AiCallGuard guard;
+
+    public GuardedChatModel(ChatModel delegate, AiCallGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return guard.call(AiModelType.CHAT, () -> delegate.call(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return guard.stream(AiModelType.CHAT, Flux.defer(() -> delegate.stream(prompt)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
@@ -0,0 +1,23 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiModelType;
+import org.springframework.ai.image.ImageModel;
+import org.springframework.ai.image.ImagePrompt;
+import org.springframework.ai.image.ImageResponse;
+
+// ImageModel decorator: calls go through the image bulkhead, breaker and time limit
+public class GuardedImageModel implements ImageModel {
+
+    private final ImageModel delegate;
+    private final AiCallGuard guard;
+
+    public GuardedImageModel(ImageModel delegate, AiCallGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public ImageResponse call(ImagePrompt request) {
+        return guard.call(AiModelType.IMAGE, () -> delegate.call(request));
+    }
+}
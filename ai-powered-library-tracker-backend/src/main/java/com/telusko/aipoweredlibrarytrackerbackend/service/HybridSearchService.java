@@ -0,0 +1,185 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AiUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ranks books for a search query by fusing two candidate lists in a single SQL round trip:
+// Postgres full-text search (GIN index on book.search_vector) and pgvector nearest neighbours
+// (HNSW index on vector_store.embedding, in the configured storage mode, re-scored at full precision). Lists are combined with reciprocal rank fusion,
+// score = sum(1 / (k + rank)), so a book ranked well by either side ends up near the top.
+// Neighbours further than the similarity threshold (cosine distance > 1 - threshold) are dropped first.
+// With the local vector store the vector side comes from the VectorStore and the lists are fused here.
+// While the embedding model is unavailable the search degrades to the full-text ranking alone.
+@Service
+public class HybridSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridSearchService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private VectorStoreMaintenanceService vectorStoreMaintenanceService;
+
+    @Autowired
+    private VectorIndexLayout vectorIndexLayout;
+
+    @Value("${book.search.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${book.search.candidates:50}")
+    private int candidates;
+
+    // Same cut-off as the RAG retrieval: neighbours below it are not related to the query at all and
+    // must not get an RRF score just for being among the nearest
+    @Value("${book.vector.similarity-threshold:0.7}")
+    private double similarityThreshold;
+
+    // Returns book ids, best match first. With a userEmail both sides only look at that user's books:
+    // full-text through book.user_email, vectors through the GIN indexed metadata (metadata @> {"email": ...}),
+    // so the per-user top-k is not crowded out by other users' books.
+    // The query embedding and the retrieval are recorded as separate stages on the timer.
+    public List<Long> search(String query, String userEmail, int limit, StageTimer timer) {
+        if (!vectorStoreMaintenanceService.isPgVector()) {
+            return searchWithVectorStore(query, userEmail, limit, timer);
+        }
+
+        String queryVector;
+        try {
+            queryVector = timer.stage("embed", () -> VectorIndexLayout.toVectorLiteral(embeddingModel.embed(query)));
+        } catch (AiUnavailableException e) {
+            log.warn("Full-text only search: {}", e.getMessage());
+            return timer.stage("retrieve", () -> textHits(query, userEmail, limit));
+        }
+        boolean scoped = userEmail != null && !userEmail.isBlank();
+
+        List<Object> params = new ArrayList<>();
+        params.add(query);
+        if (scoped) {
+            params.add(userEmail);
+        }
+        params.add(candidates);
+        params.add(queryVector);
+        if (scoped) {
+            params.add(userEmail);
+        }
+        params.add(queryVector);
+        params.add(vectorIndexLayout.candidateCount(candidates));
+        params.add(1 - similarityThreshold);
+        params.add(rrfK);
+        params.add(limit);
+
+        return timer.stage("retrieve", () -> jdbcTemplate.queryForList("""
+                WITH text_hits AS (
+                    SELECT b.id, row_number() OVER (ORDER BY ts_rank_cd(b.search_vector, q) DESC) AS rank
+                    FROM book b, websearch_to_tsquery('english', ?) q
+                    WHERE b.search_vector @@ q %s
+                    ORDER BY ts_rank_cd(b.search_vector, q) DESC
+                    LIMIT ?
+                ),
+                nearest AS (
+                    SELECT c.id, c.embedding <=> ?::vector AS distance
+                    FROM (
+                        SELECT (v.metadata->>'bookId')::bigint AS id, v.embedding
+                        FROM vector_store v
+                        %s
+                        ORDER BY %s
+                        LIMIT ?
+                    ) c
+                ),
+                vector_hits AS (
+                    SELECT id, row_number() OVER (ORDER BY distance) AS rank
+                    FROM nearest
+                    WHERE distance <= ?
+                )
+                SELECT id
+                FROM (SELECT id, rank FROM text_hits UNION ALL SELECT id, rank FROM vector_hits) hits
+                GROUP BY id
+                ORDER BY sum(1.0 / (? + rank)) DESC, id
+                LIMIT ?
+                """.formatted(
+                        scoped ? "AND b.user_email = ?" : "",
+                        scoped ? "WHERE v.metadata @> jsonb_build_object('email', ?::text)" : "",
+                        vectorIndexLayout.candidateOrder("v.embedding")),
+                Long.class,
+                params.toArray()));
+    }
+
+    private List<Long> searchWithVectorStore(String query, String userEmail, int limit, StageTimer timer) {
+        boolean scoped = userEmail != null && !userEmail.isBlank();
+
+        List<Long> textHits = timer.stage("retrieve-text", () -> textHits(query, userEmail, candidates));
+
+        SearchRequest.Builder request = SearchRequest.builder()
+                .query(query)
+                .topK(candidates)
+                .similarityThreshold(similarityThreshold);
+        if (scoped) {
+            request.filterExpression(new FilterExpressionBuilder().eq("email", userEmail).build());
+        }
+        List<Long> vectorHits;
+        try {
+            vectorHits = timer.stage("retrieve-vector", () -> vectorStore.similaritySearch(request.build())).stream()
+                    .map(Document::getMetadata)
+                    .map(metadata -> Long.valueOf(String.valueOf(metadata.get("bookId"))))
+                    .toList();
+        } catch (AiUnavailableException e) {
+            log.warn("Full-text only search: {}", e.getMessage());
+            vectorHits = List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (List<Long> hits : List.of(textHits, vectorHits)) {
+            for (int i = 0; i < hits.size(); i++) {
+                scores.merge(hits.get(i), 1.0 / (rrfK + i + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Full-text side on its own, best ts_rank_cd first
+    private List<Long> textHits(String query, String userEmail, int limit) {
+        boolean scoped = userEmail != null && !userEmail.isBlank();
+
+        List<Object> params = new ArrayList<>();
+        params.add(query);
+        if (scoped) {
+            params.add(userEmail);
+        }
+        params.add(limit);
+        return jdbcTemplate.queryForList("""
+                SELECT b.id
+                FROM book b, websearch_to_tsquery('english', ?) q
+                WHERE b.search_vector @@ q %s
+                ORDER BY ts_rank_cd(b.search_vector, q) DESC
+                LIMIT ?
+                """.formatted(scoped ? "AND b.user_email = ?" : ""),
+                Long.class,
+                params.toArray());
+    }
+}
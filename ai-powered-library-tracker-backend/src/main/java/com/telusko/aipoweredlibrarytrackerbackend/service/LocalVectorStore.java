@@ -0,0 +1,286 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.KnnVectorsReader;
+import org.apache.lucene.codecs.KnnVectorsWriter;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswVectorsFormat;
+import org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// In-process VectorStore: a Lucene HNSW index in a local directory. Vectors and the graph live in
+// segment files that Lucene memory-maps, so they stay off-heap and a restart only re-opens the files.
+// Documents are keyed by id (add replaces), metadata values are indexed as exact-match terms so
+// Spring AI filter expressions (==, !=, in, nin, and, or, not) can be pushed into the kNN query.
+public class LocalVectorStore implements VectorStore, AutoCloseable {
+
+    private static final String ID = "id";
+    private static final String CONTENT = "content";
+    private static final String METADATA = "metadata";
+    private static final String EMBEDDING = "embedding";
+    private static final String META_PREFIX = "meta.";
+
+    // Lucene's default limit is 1024, OpenAI embeddings have 1536
+    private static final int MAX_DIMENSIONS = 4096;
+
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public LocalVectorStore(EmbeddingModel embeddingModel, ObjectMapper objectMapper, Path path,
+                            int m, int efConstruction) throws IOException {
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+
+        Files.createDirectories(path);
+        // FSDirectory.open picks MMapDirectory on 64-bit JVMs
+        this.directory = FSDirectory.open(path);
+
+        IndexWriterConfig config = new IndexWriterConfig();
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        config.setCodec(codec(m, efConstruction));
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @Override
+    public String getName() {
+        return "LocalVectorStore";
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        add(documents, embeddingModel.embed(documents.stream().map(Document::getText).toList()));
+    }
+
+    // Add documents whose texts were already embedded, in the same order
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+
+                org.apache.lucene.document.Document entry = new org.apache.lucene.document.Document();
+                entry.add(new StringField(ID, document.getId(), Field.Store.YES));
+                entry.add(new StoredField(CONTENT, document.getText() != null ? document.getText() : ""));
+                entry.add(new StoredField(METADATA, objectMapper.writeValueAsString(document.getMetadata())));
+                for (Map.Entry<String, Object> meta : document.getMetadata().entrySet()) {
+                    if (meta.getValue() != null) {
+                        entry.add(new StringField(META_PREFIX + meta.getKey(), String.valueOf(meta.getValue()), Field.Store.NO));
+                    }
+                }
+                entry.add(new KnnFloatVectorField(EMBEDDING, embeddings.get(i), VectorSimilarityFunction.COSINE));
+
+                writer.updateDocument(new Term(ID, document.getId()), entry);
+            }
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to add documents to the local vector store", e);
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        try {
+            writer.deleteDocuments(idList.stream().map(id -> new Term(ID, id)).toArray(Term[]::new));
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete documents from the local vector store", e);
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        try {
+            writer.deleteDocuments(toQuery(filterExpression));
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete documents from the local vector store", e);
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] queryVector = embeddingModel.embed(request.getQuery());
+        Query filter = request.getFilterExpression() != null ? toQuery(request.getFilterExpression()) : null;
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(
+                        new KnnFloatVectorQuery(EMBEDDING, queryVector, request.getTopK(), filter),
+                        request.getTopK()).scoreDocs;
+
+                List<Document> documents = new ArrayList<>(hits.length);
+                for (ScoreDoc hit : hits) {
+                    // Lucene scores cosine as (1 + cos) / 2; report the cosine similarity like PgVectorStore
+                    double similarity = 2.0 * hit.score - 1.0;
+                    if (similarity < request.getSimilarityThreshold()) {
+                        continue;
+                    }
+
+                    org.apache.lucene.document.Document stored = searcher.storedFields().document(hit.doc);
+                    Map<String, Object> metadata = objectMapper.readValue(stored.get(METADATA), new TypeReference<>() {
+                    });
+                    metadata.put("distance", 1.0 - similarity);
+
+                    documents.add(Document.builder()
+                            .id(stored.get(ID))
+                            .text(stored.get(CONTENT))
+                            .metadata(metadata)
+                            .score(similarity)
+                            .build());
+                }
+                return documents;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Local vector search failed", e);
+        }
+    }
+
+    public int count() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private Query toQuery(Filter.Expression expression) {
+        return switch (expression.type()) {
+            case AND -> new BooleanQuery.Builder()
+                    .add(toQuery(operand(expression.left())), BooleanClause.Occur.FILTER)
+                    .add(toQuery(operand(expression.right())), BooleanClause.Occur.FILTER)
+                    .build();
+            case OR -> new BooleanQuery.Builder()
+                    .add(toQuery(operand(expression.left())), BooleanClause.Occur.SHOULD)
+                    .add(toQuery(operand(expression.right())), BooleanClause.Occur.SHOULD)
+                    .build();
+            case NOT -> negate(toQuery(operand(expression.left())));
+            case EQ -> term(expression, value(expression));
+            case NE -> negate(term(expression, value(expression)));
+            case IN -> anyOf(expression);
+            case NIN -> negate(anyOf(expression));
+            default -> throw new IllegalArgumentException("Filter operation not supported by the local vector store: "
+                    + expression.type());
+        };
+    }
+
+    private Filter.Expression operand(Filter.Operand operand) {
+        return operand instanceof Filter.Group group ? group.content() : (Filter.Expression) operand;
+    }
+
+    private Query anyOf(Filter.Expression expression) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (Object value : (Collection<?>) value(expression)) {
+            builder.add(term(expression, value), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private Query term(Filter.Expression expression, Object value) {
+        String key = ((Filter.Key) expression.left()).key();
+        return new TermQuery(new Term(META_PREFIX + key, String.valueOf(value)));
+    }
+
+    private Object value(Filter.Expression expression) {
+        return ((Filter.Value) expression.right()).value();
+    }
+
+    private Query negate(Query query) {
+        return new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+                .add(query, BooleanClause.Occur.MUST_NOT)
+                .build();
+    }
+
+    // The default HNSW format with our graph parameters and a dimension limit that fits OpenAI vectors.
+    // It keeps the standard format name, so the files are read back by the regular Lucene codec.
+    private static Codec codec(int m, int efConstruction) {
+        KnnVectorsFormat hnsw = new Lucene99HnswVectorsFormat(m, efConstruction);
+        KnnVectorsFormat format = new KnnVectorsFormat(hnsw.getName()) {
+            @Override
+            public KnnVectorsWriter fieldsWriter(SegmentWriteState state) throws IOException {
+                return hnsw.fieldsWriter(state);
+            }
+
+            @Override
+            public KnnVectorsReader fieldsReader(SegmentReadState state) throws IOException {
+                return hnsw.fieldsReader(state);
+            }
+
+            @Override
+            public int getMaxDimensions(String fieldName) {
+                return MAX_DIMENSIONS;
+            }
+        };
+
+        Codec defaultCodec = Codec.getDefault();
+        return new FilterCodec(defaultCodec.getName(), defaultCodec) {
+            private final KnnVectorsFormat knnVectorsFormat = new PerFieldKnnVectorsFormat() {
+                @Override
+                public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                    return format;
+                }
+            };
+
+            @Override
+            public KnnVectorsFormat knnVectorsFormat() {
+                return knnVectorsFormat;
+            }
+        };
+    }
+}
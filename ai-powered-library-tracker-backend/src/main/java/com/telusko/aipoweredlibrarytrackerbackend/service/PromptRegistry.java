@@ -0,0 +1,96 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads every prompts/*.st template once at startup and serves the parsed PromptTemplate from memory.
+// Templates are read through the resource stream, so this also works when running from a jar.
+// With book.prompts.hot-reload=true (dev only) a template is re-read when its file changes.
+@Service
+public class PromptRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptRegistry.class);
+
+    private record LoadedTemplate(PromptTemplate template, Resource resource, long lastModified) {
+    }
+
+    @Autowired
+    private ResourcePatternResolver resourcePatternResolver;
+
+    @Value("${book.prompts.location:classpath*:prompts/*.st}")
+    private String location;
+
+    @Value("${book.prompts.hot-reload:false}")
+    private boolean hotReload;
+
+    private final Map<String, LoadedTemplate> templates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        for (Resource resource : resourcePatternResolver.getResources(location)) {
+            String fileName = resource.getFilename();
+            if (fileName == null) {
+                continue;
+            }
+            String name = fileName.substring(0, fileName.length() - ".st".length());
+            templates.put(name, load(resource));
+        }
+        log.info("Loaded prompt templates: {}", templates.keySet());
+    }
+
+    // Render the named template (file name without .st) into a prompt
+    public Prompt create(String name, Map<String, Object> variables) {
+        return get(name).create(variables);
+    }
+
+    public PromptTemplate get(String name) {
+        LoadedTemplate loaded = templates.get(name);
+        if (loaded == null) {
+            throw new IllegalArgumentException("Unknown prompt template: " + name);
+        }
+
+        if (hotReload && lastModified(loaded.resource()) > loaded.lastModified()) {
+            loaded = templates.compute(name, (key, current) -> reload(current));
+        }
+        return loaded.template();
+    }
+
+    private LoadedTemplate reload(LoadedTemplate current) {
+        try {
+            return load(current.resource());
+        } catch (IOException e) {
+            log.warn("Failed to reload prompt template {}, keeping the loaded one", current.resource(), e);
+            return current;
+        }
+    }
+
+    private LoadedTemplate load(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            PromptTemplate template = PromptTemplate.builder().template(text).build();
+            return new LoadedTemplate(template, resource, lastModified(resource));
+        }
+    }
+
+    private long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
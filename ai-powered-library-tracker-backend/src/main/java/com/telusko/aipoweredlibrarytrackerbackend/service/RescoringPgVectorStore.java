@@ -0,0 +1,104 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+// PgVectorStore whose searches use the reduced (halfvec / binary / truncated) expression index.
+// Candidates come from the index in its reduced form, then the exact cosine distance on the full
+// embedding column re-ranks them and applies the similarity threshold. Writes go to PgVectorStore.
+public class RescoringPgVectorStore implements VectorStore {
+
+    private final PgVectorStore delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final VectorIndexLayout layout;
+    private final PgVectorFilterExpressionConverter filterConverter = new PgVectorFilterExpressionConverter();
+
+    public RescoringPgVectorStore(PgVectorStore delegate, JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel,
+                                  ObjectMapper objectMapper, VectorIndexLayout layout) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+        this.layout = layout;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        String queryVector = VectorIndexLayout.toVectorLiteral(embeddingModel.embed(request.getQuery()));
+        String filter = request.getFilterExpression() != null
+                ? "WHERE metadata::jsonb @@ '" + filterConverter.convertExpression(request.getFilterExpression()) + "'::jsonpath"
+                : "";
+
+        return jdbcTemplate.query("""
+                SELECT id, content, metadata::text AS metadata, distance
+                FROM (
+                    SELECT c.id, c.content, c.metadata, c.embedding <=> ?::vector AS distance
+                    FROM (
+                        SELECT id, content, metadata, embedding FROM vector_store
+                        %s
+                        ORDER BY %s
+                        LIMIT ?
+                    ) c
+                ) rescored
+                WHERE distance <= ?
+                ORDER BY distance
+                LIMIT ?
+                """.formatted(filter, layout.candidateOrder("embedding")),
+                (rs, rowNum) -> {
+                    double distance = rs.getDouble("distance");
+                    Map<String, Object> metadata = readMetadata(rs.getString("metadata"));
+                    metadata.put("distance", distance);
+                    return Document.builder()
+                            .id(rs.getString("id"))
+                            .text(rs.getString("content"))
+                            .metadata(metadata)
+                            .score(1.0 - distance)
+                            .build();
+                },
+                queryVector, queryVector, layout.candidateCount(request.getTopK()),
+                1.0 - request.getSimilarityThreshold(), request.getTopK());
+    }
+
+    private Map<String, Object> readMetadata(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable vector_store metadata: " + json, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Retrieval and prompt context for the chat and the rerank: vector hits cut adaptively where
+// their scores fall off (between book.rag.min-k and book.rag.max-k), rendered from the current
+// book rows by ContextAssembler within the book.rag.*-max-context-tokens budgets.
+@Service
+public class RetrievalService {
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private AiMetrics aiMetrics;
+
+    @Value("${book.rag.max-k:10}")
+    private int maxK;
+
+    @Value("${book.rag.min-k:2}")
+    private int minK;
+
+    @Value("${book.rag.max-score-gap:0.08}")
+    private double maxScoreGap;
+
+    @Value("${book.rag.max-score-drop:0.15}")
+    private double maxScoreDrop;
+
+    @Value("${book.vector.similarity-threshold:0.7}")
+    private double similarityThreshold;
+
+    @Value("${book.rag.max-context-tokens:800}")
+    private int maxContextTokens;
+
+    @Value("${book.rag.rerank-max-context-tokens:3000}")
+    private int rerankMaxContextTokens;
+
+    @Value("${book.rag.description-chars:200}")
+    private int descriptionChars;
+
+    // Should match the chat model's encoding: O200K_BASE for gpt-4o, CL100K_BASE for gpt-4 / gpt-3.5
+    @Value("${book.rag.tokenizer-encoding:O200K_BASE}")
+    private EncodingType tokenizerEncoding;
+
+    private ContextAssembler chatAssembler;
+    private ContextAssembler rerankAssembler;
+
+    @PostConstruct
+    public void init() {
+        TokenCountEstimator tokenizer = new JTokkitTokenCountEstimator(tokenizerEncoding);
+        chatAssembler = new ContextAssembler(tokenizer, maxContextTokens, descriptionChars);
+        rerankAssembler = new ContextAssembler(tokenizer, rerankMaxContextTokens, descriptionChars);
+    }
+
+    // userEmail is optional; when given, only that user's books are searched
+    public List<Document> retrieve(String query, String userEmail) {
+        SearchRequest.Builder request = SearchRequest.builder()
+                .query(query)
+                .topK(maxK)
+                .similarityThreshold(similarityThreshold);
+
+        // Filter inside the vector query (GIN index on metadata) instead of after the top-k cut
+        if (userEmail != null && !userEmail.isBlank()) {
+            request.filterExpression(new FilterExpressionBuilder().eq("email", userEmail).build());
+        }
+
+        return ContextAssembler.adaptiveTopK(vectorStore.similaritySearch(request.build()), minK, maxScoreGap, maxScoreDrop);
+    }
+
+    // Books deleted since they were embedded drop out here
+    public String chatContext(String operation, List<Document> documents) {
+        List<Long> ids = documents.stream()
+                .map(document -> document.getMetadata().get("bookId"))
+                .filter(Objects::nonNull)
+                .map(id -> Long.valueOf(String.valueOf(id)))
+                .distinct()
+                .toList();
+        return record(operation, chatAssembler.chatContext(inOrder(ids, bookRepo.findAllById(ids))));
+    }
+
+    public String candidateContext(String operation, List<Book> candidates) {
+        return record(operation, rerankAssembler.candidateContext(candidates));
+    }
+
+    private String record(String operation, ContextAssembler.Context context) {
+        aiMetrics.recordContext(operation, context.tokens(), context.books());
+        return context.text();
+    }
+
+    private List<Book> inOrder(List<Long> ids, List<Book> books) {
+        Map<Long, Book> byId = new HashMap<>();
+        books.forEach(book -> byId.put(book.getId(), book));
+        List<Book> ordered = new ArrayList<>();
+        for (Long id : ids) {
+            Book book = byId.get(id);
+            if (book != null) {
+                ordered.add(book);
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,151 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.BooksChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Reuses chatbot answers for semantically equivalent questions.
+// A cached answer is served when the new query embedding is within max-distance (cosine) of a
+// cached query AND the retrieved context is the same set of documents. Entries expire after the
+// TTL, the least recently used are evicted beyond max-entries, and entries are dropped as soon
+// as one of their context books is re-embedded or deleted.
+@Service
+public class SemanticResponseCache {
+
+    private record Entry(float[] queryVector, String contextSignature, Set<String> bookIds,
+                         String answer, Instant createdAt) {
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${book.chat.semantic-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${book.chat.semantic-cache.max-distance:0.05}")
+    private double maxDistance;
+
+    @Value("${book.chat.semantic-cache.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${book.chat.semantic-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private Counter hits;
+    private Counter misses;
+
+    private long nextId;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Long>> bySignature = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.hits = Counter.builder("chat.semantic.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.semantic.cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    public synchronized Optional<String> lookup(float[] queryVector, List<Document> context) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Set<Long> candidates = bySignature.getOrDefault(signature(context), Set.of());
+        Instant now = Instant.now();
+
+        for (Long id : List.copyOf(candidates)) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.createdAt().plus(ttl).isBefore(now)) {
+                remove(id);
+                continue;
+            }
+            if (cosineDistance(queryVector, entry.queryVector()) <= maxDistance) {
+                hits.increment();
+                return Optional.of(entry.answer());
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public synchronized void put(float[] queryVector, List<Document> context, String answer) {
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> bookIds = context.stream()
+                .map(doc -> String.valueOf(doc.getMetadata().get("bookId")))
+                .collect(Collectors.toSet());
+        String signature = signature(context);
+
+        long id = nextId++;
+        entries.put(id, new Entry(queryVector, signature, bookIds, answer, Instant.now()));
+        bySignature.computeIfAbsent(signature, key -> new HashSet<>()).add(id);
+
+        // Evict least recently used entries beyond the size bound
+        Iterator<Long> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Long eldestId = eldest.next();
+            Entry removed = entries.get(eldestId);
+            eldest.remove();
+            removeFromIndex(eldestId, removed);
+        }
+    }
+
+    @EventListener
+    public synchronized void onBooksChanged(BooksChangedEvent event) {
+        Set<String> changed = event.bookIds().stream().map(String::valueOf).collect(Collectors.toSet());
+        List<Long> stale = entries.entrySet().stream()
+                .filter(e -> !Collections.disjoint(e.getValue().bookIds(), changed))
+                .map(Map.Entry::getKey)
+                .toList();
+        stale.forEach(this::remove);
+    }
+
+    private void remove(Long id) {
+        Entry removed = entries.remove(id);
+        removeFromIndex(id, removed);
+    }
+
+    private void removeFromIndex(Long id, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        Set<Long> ids = bySignature.get(entry.contextSignature());
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                bySignature.remove(entry.contextSignature());
+            }
+        }
+    }
+
+    // Order independent identity of the retrieved context
+    private String signature(List<Document> context) {
+        return context.stream().map(Document::getId).sorted().collect(Collectors.joining(","));
+    }
+
+    private double cosineDistance(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return 1 - dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
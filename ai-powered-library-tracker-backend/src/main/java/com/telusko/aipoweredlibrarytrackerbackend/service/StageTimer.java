@@ -0,0 +1,105 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Wall-clock time per stage of one request, in the order the stages ran. Every stage is also an
+// observation named book.stage (tags operation, stage): a Micrometer timer and, with tracing on, a span.
+// The breakdown is rendered for the slow-request log and as a Server-Timing header, which browsers
+// show in the network panel. Created through AiMetrics.start().
+// Stages may finish on other threads (a streamed answer completes on a Reactor thread), so the recorded
+// durations are guarded by the timer's monitor; the stage bodies themselves run unsynchronized.
+public class StageTimer {
+
+    public static final String STAGE_METRIC = "book.stage";
+
+    // A stage body that may throw a checked exception
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final String operation;
+    private final long startNanos;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    private long last;
+
+    public StageTimer(String operation, long startNanos, ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.operation = operation;
+        this.startNanos = startNanos;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.last = startNanos;
+    }
+
+    public String operation() {
+        return operation;
+    }
+
+    public <T, E extends Exception> T stage(String stage, Stage<T, E> work) throws E {
+        Observation observation = Observation.createNotStarted(STAGE_METRIC, observationRegistry)
+                .contextualName(operation + " " + stage)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("stage", stage)
+                .start();
+        long begin = System.nanoTime();
+        try (Observation.Scope scope = observation.openScope()) {
+            return work.run();
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+            record(stage, System.nanoTime() - begin);
+        }
+    }
+
+    // Closes a stage that could not be wrapped (e.g. receiving the upload, which happens before the
+    // controller runs, or the wait for a streamed answer): everything since the previous stage
+    public void mark(String stage) {
+        long elapsed;
+        synchronized (this) {
+            long now = System.nanoTime();
+            elapsed = now - last;
+            stages.merge(stage, elapsed, Long::sum);
+            last = now;
+        }
+        Timer.builder(STAGE_METRIC)
+                .tags("operation", operation, "stage", stage, "error", "none")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void record(String stage, long elapsed) {
+        stages.merge(stage, elapsed, Long::sum);
+        last = System.nanoTime();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    // Locale.ROOT: the header needs a '.' decimal separator whatever the server's default locale
+    public synchronized String serverTiming() {
+        return stages.entrySet().stream()
+                .map(stage -> stage.getKey() + ";dur=" + String.format(Locale.ROOT, "%.1f", stage.getValue() / 1_000_000.0))
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return stages.entrySet().stream()
+                .map(stage -> stage.getKey() + "=" + stage.getValue() / 1_000_000 + "ms")
+                .collect(Collectors.joining(" "));
+    }
+}
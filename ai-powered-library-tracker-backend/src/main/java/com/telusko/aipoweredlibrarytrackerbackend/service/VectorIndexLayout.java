@@ -0,0 +1,78 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.VectorStorageMode;
+
+// SQL fragments for the configured VectorStorageMode. The reduced representations are expression
+// indexes over the full-precision embedding column, so switching modes only rebuilds the index and
+// exact distances stay available for re-scoring. A query uses the index only when its ORDER BY
+// expression is exactly the indexed expression, which is why index and queries both come from here.
+public class VectorIndexLayout {
+
+    private final VectorStorageMode mode;
+    private final int dimensions;
+    private final int truncatedDimensions;
+    private final int rescoreFactor;
+
+    public VectorIndexLayout(VectorStorageMode mode, int dimensions, int truncatedDimensions, int rescoreFactor) {
+        if (mode == VectorStorageMode.TRUNCATED && (truncatedDimensions <= 0 || truncatedDimensions >= dimensions)) {
+            throw new IllegalArgumentException("book.vector.truncated-dimensions must be between 1 and " + (dimensions - 1));
+        }
+        this.mode = mode;
+        this.dimensions = dimensions;
+        this.truncatedDimensions = truncatedDimensions;
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+    }
+
+    public VectorStorageMode mode() {
+        return mode;
+    }
+
+    // Indexed expression and operator class, e.g. "(embedding::halfvec(1536)) halfvec_cosine_ops"
+    public String indexKey(String column) {
+        return switch (mode) {
+            case FULL -> column + " vector_cosine_ops";
+            case HALFVEC -> "(" + column + "::halfvec(" + dimensions + ")) halfvec_cosine_ops";
+            case BINARY -> "(binary_quantize(" + column + ")::bit(" + dimensions + ")) bit_hamming_ops";
+            case TRUNCATED -> "(subvector(" + column + ", 1, " + truncatedDimensions + ")::vector("
+                    + truncatedDimensions + ")) vector_cosine_ops";
+        };
+    }
+
+    // Text pg_get_indexdef() shows for an index built from indexKey(), used to detect a mode change
+    public String indexSignature() {
+        return switch (mode) {
+            case FULL -> "(embedding vector_cosine_ops)";
+            case HALFVEC -> "halfvec(" + dimensions + ")) halfvec_cosine_ops";
+            case BINARY -> "bit(" + dimensions + ")) bit_hamming_ops";
+            case TRUNCATED -> "vector(" + truncatedDimensions + ")) vector_cosine_ops";
+        };
+    }
+
+    // ORDER BY expression that walks the index; takes the query vector as one ?::vector parameter
+    public String candidateOrder(String column) {
+        return switch (mode) {
+            case FULL -> column + " <=> ?::vector";
+            case HALFVEC -> column + "::halfvec(" + dimensions + ") <=> ?::vector::halfvec(" + dimensions + ")";
+            case BINARY -> "binary_quantize(" + column + ")::bit(" + dimensions + ") <~> binary_quantize(?::vector)";
+            case TRUNCATED -> "subvector(" + column + ", 1, " + truncatedDimensions + ")::vector(" + truncatedDimensions
+                    + ") <=> subvector(?::vector, 1, " + truncatedDimensions + ")::vector(" + truncatedDimensions + ")";
+        };
+    }
+
+    // How many index candidates to fetch for k results; lossy modes over-fetch and re-score exactly
+    public int candidateCount(int k) {
+        return mode == VectorStorageMode.BINARY || mode == VectorStorageMode.TRUNCATED ? k * rescoreFactor : k;
+    }
+
+    // pgvector text form of a vector, bound as a ?::vector parameter
+    public static String toVectorLiteral(float[] vector) {
+        StringBuilder literal = new StringBuilder(vector.length * 12).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(vector[i]);
+        }
+        return literal.append(']').toString();
+    }
+}
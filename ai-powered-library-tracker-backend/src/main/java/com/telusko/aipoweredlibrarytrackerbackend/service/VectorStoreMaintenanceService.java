@@ -0,0 +1,156 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.model.VectorReconcileResult;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps vector_store in step with the book table.
+// Documents are located through metadata->>'bookId' (indexed in schema.sql), which also
+// covers legacy documents stored under random ids.
+// With book.vector.store=local the same operations go through the VectorStore API instead;
+// that store only ever holds deterministic ids and is cleaned up through book deletes.
+// Also ages out the Postgres tier of the embedding cache, which would otherwise keep a row for every
+// text ever embedded (edited descriptions, one-off queries).
+@Service
+public class VectorStoreMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorStoreMaintenanceService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private EmbeddingOutboxService embeddingOutboxService;
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${book.vector.store:pgvector}")
+    private String store;
+
+    @Value("${book.vector.reconcile-batch-size:1000}")
+    private int reconcileBatchSize;
+
+    @Value("${book.embedding.cache.retention:P90D}")
+    private Duration embeddingCacheRetention;
+
+    public void deleteByBookIds(List<Long> bookIds) {
+        String[] ids = bookIds.stream().map(String::valueOf).toArray(String[]::new);
+        if (!isPgVector()) {
+            vectorStore.delete(new FilterExpressionBuilder().in("bookId", (Object[]) ids).build());
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM vector_store WHERE metadata->>'bookId' = ANY(?)", (Object) ids);
+    }
+
+    // Remove any other documents of these books before their deterministic documents are upserted
+    public void deleteStaleDocuments(List<Long> bookIds) {
+        if (!isPgVector()) {
+            return;
+        }
+        String[] ids = bookIds.stream().map(String::valueOf).toArray(String[]::new);
+        String[] keep = bookIds.stream().map(BookService::documentId).toArray(String[]::new);
+        jdbcTemplate.update(
+                "DELETE FROM vector_store WHERE metadata->>'bookId' = ANY(?) AND id::text <> ALL(?)",
+                ids, keep);
+    }
+
+    // Upsert documents whose texts were embedded beforehand (same order), so the caller's transaction does
+    // no model call. Writes the same row as PgVectorStore.add: id, content, metadata as jsonb, embedding.
+    public void upsert(List<Document> documents, List<float[]> embeddings) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        if (!isPgVector()) {
+            ((LocalVectorStore) vectorStore).add(documents, embeddings);
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            rows.add(new Object[]{document.getId(), document.getText(), toJson(document),
+                    VectorIndexLayout.toVectorLiteral(embeddings.get(i))});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO vector_store (id, content, metadata, embedding)
+                VALUES (?, ?, ?::jsonb, ?::vector)
+                ON CONFLICT (id) DO UPDATE
+                SET content = EXCLUDED.content, metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding
+                """, rows);
+    }
+
+    // Purge orphaned documents in bulk and queue books that still only have legacy documents
+    @Scheduled(
+            initialDelayString = "${book.vector.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${book.vector.reconcile-interval-ms:3600000}"
+    )
+    @Transactional
+    public VectorReconcileResult reconcile() {
+        int purged = !isPgVector() ? 0 : jdbcTemplate.update("""
+                DELETE FROM vector_store v
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM book b WHERE b.id = (v.metadata->>'bookId')::bigint
+                )
+                """);
+
+        List<Long> unembedded = bookRepo.findIdsWithoutEmbedding(Limit.of(reconcileBatchSize));
+        if (!unembedded.isEmpty()) {
+            embeddingOutboxService.enqueueAll(unembedded);
+        }
+
+        if (purged > 0 || !unembedded.isEmpty()) {
+            log.info("Vector store reconciled: purged {} orphaned documents, queued {} books for embedding",
+                    purged, unembedded.size());
+        }
+        return new VectorReconcileResult(purged, unembedded.size());
+    }
+
+    // Entries are dropped by age rather than last use so cache hits stay read-only; a text still in use
+    // after the retention is embedded and stored once more
+    @Scheduled(fixedDelayString = "${book.embedding.cache.purge-interval-ms:86400000}")
+    public void purgeEmbeddingCache() {
+        int purged = jdbcTemplate.update("DELETE FROM embedding_cache WHERE created_at < ?",
+                Timestamp.from(Instant.now().minus(embeddingCacheRetention)));
+        if (purged > 0) {
+            log.info("Purged {} embedding cache entries", purged);
+        }
+    }
+
+    private String toJson(Document document) {
+        try {
+            return objectMapper.writeValueAsString(document.getMetadata());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unwritable metadata for vector_store document " + document.getId(), e);
+        }
+    }
+
+    public boolean isPgVector() {
+        return "pgvector".equals(store);
+    }
+}
@@ -0,0 +1,241 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.AudioRejectedException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.AiModelType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Voice query -> text. The upload is streamed to a temp file (hashing it on the way), never held in
+// the heap. Transcripts are cached by that content hash, so a repeated recording skips the model call.
+// With ffmpeg available the audio is downsampled to 16 kHz mono Opus before the upload to the
+// transcription API (a few KB per second instead of the browser's recording bitrate) and its
+// duration is checked with ffprobe. Without ffmpeg the original file is sent and only the size limit applies.
+@Service
+public class VoiceTranscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(VoiceTranscriptionService.class);
+
+    public static final String TRANSCRIPTS = "transcripts";  // key: sha-256 of the uploaded audio
+
+    @Autowired
+    private OpenAiAudioTranscriptionModel transcriptionModel;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AiCallGuard aiCallGuard;
+
+    @Value("${book.voice.max-size:10MB}")
+    private DataSize maxSize;
+
+    @Value("${book.voice.max-duration:PT60S}")
+    private Duration maxDuration;
+
+    @Value("${book.voice.transcode:true}")
+    private boolean transcode;
+
+    @Value("${book.voice.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${book.voice.ffprobe-path:ffprobe}")
+    private String ffprobePath;
+
+    @Value("${book.voice.sample-rate:16000}")
+    private int sampleRate;
+
+    @Value("${book.voice.bitrate:24k}")
+    private String bitrate;
+
+    @Value("${book.voice.tool-timeout:PT30S}")
+    private Duration toolTimeout;
+
+    // Cleared the first time ffmpeg/ffprobe cannot be started, so a missing binary is only tried once
+    private volatile boolean toolsAvailable = true;
+
+    public String transcribe(MultipartFile audio, StageTimer timer) throws AudioRejectedException {
+        if (audio.getSize() > maxSize.toBytes()) {
+            throw new AudioRejectedException("Audio is larger than " + maxSize);
+        }
+
+        Path original = null;
+        Path compact = null;
+        try {
+            original = Files.createTempFile("voice-", ".upload");
+            String hash = spool(audio, original);
+            timer.mark("upload");
+
+            Cache cache = cacheManager.getCache(TRANSCRIPTS);
+            String cached = cache != null ? timer.stage("transcript-cache", () -> cache.get(hash, String.class)) : null;
+            if (cached != null) {
+                return cached;
+            }
+
+            Path source = original;
+            compact = timer.stage("transcode", () -> {
+                // Recordings from MediaRecorder often carry no duration header, then only the transcoded file tells
+                checkDuration(probeDuration(source));
+                Path transcoded = transcode ? transcode(source) : null;
+                if (transcoded != null) {
+                    try {
+                        checkDuration(probeDuration(transcoded));
+                    } catch (AudioRejectedException e) {
+                        deleteQuietly(transcoded);
+                        throw e;
+                    }
+                }
+                return transcoded;
+            });
+
+            FileSystemResource upload = new FileSystemResource(compact != null ? compact : original);
+            String transcript = timer.stage("transcribe",
+                    () -> aiCallGuard.call(AiModelType.TRANSCRIPTION, () -> transcriptionModel.call(upload)));
+
+            if (cache != null) {
+                cache.put(hash, transcript);
+            }
+            return transcript;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the voice query audio", e);
+        } finally {
+            deleteQuietly(original);
+            deleteQuietly(compact);
+        }
+    }
+
+    // Copy the upload to the temp file through a small buffer and return the sha-256 of its bytes
+    private String spool(MultipartFile audio, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(audio.getInputStream(), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void checkDuration(Double seconds) throws AudioRejectedException {
+        if (seconds != null && seconds > maxDuration.toMillis() / 1000.0) {
+            throw new AudioRejectedException("Audio is longer than " + maxDuration.toSeconds() + " seconds");
+        }
+    }
+
+    // Seconds according to the container, or null when unknown (no ffprobe, no duration header)
+    private Double probeDuration(Path file) {
+        String output = run(List.of(ffprobePath, "-v", "error",
+                "-show_entries", "format=duration",
+                "-of", "default=noprint_wrappers=1:nokey=1",
+                file.toString()));
+        if (output == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(output.trim());
+        } catch (NumberFormatException e) {
+            // "N/A"
+            return null;
+        }
+    }
+
+    // Mono Opus at the speech sample rate in a WebM container (the transcription client labels every
+    // upload audio.webm). Decoding stops one second past the limit, so an over-long recording that had
+    // no duration header costs at most that much work and is then rejected by the duration check.
+    // Returns null when the audio could not be transcoded; the original is sent then.
+    private Path transcode(Path source) {
+        Path target = null;
+        try {
+            target = Files.createTempFile("voice-", ".webm");
+            List<String> command = List.of(ffmpegPath, "-nostdin", "-hide_banner",
+                    "-loglevel", "error", "-y",
+                    "-i", source.toString(),
+                    "-vn", "-ac", "1", "-ar", String.valueOf(sampleRate),
+                    "-c:a", "libopus", "-b:a", bitrate, "-application", "voip",
+                    "-t", String.valueOf(maxDuration.toSeconds() + 1),
+                    "-f", "webm", target.toString());
+
+            if (run(command) != null && Files.size(target) > 0) {
+                return target;
+            }
+        } catch (IOException e) {
+            log.warn("Could not transcode voice query: {}", e.getMessage());
+        }
+        deleteQuietly(target);
+        return null;
+    }
+
+    // stdout of the command, or null if it could not run, failed or timed out
+    private String run(List<String> command) {
+        if (!toolsAvailable) {
+            return null;
+        }
+
+        Process process;
+        try {
+            process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            toolsAvailable = false;
+            log.warn("Audio tools unavailable ({}), sending voice queries as uploaded", e.getMessage());
+            return null;
+        }
+
+        // Wait first: ffmpeg writes to a file and ffprobe prints one line, neither fills the stdout pipe
+        try (InputStream out = process.getInputStream()) {
+            if (!process.waitFor(toolTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                log.warn("{} timed out", command.get(0));
+                return null;
+            }
+            return process.exitValue() == 0 ? new String(out.readAllBytes(), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            process.destroyForcibly();
+            return null;
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -8,5 +8,35 @@ CREATE TABLE IF NOT EXISTS vector_store (
        embedding VECTOR(1536)
     );
 
--- Create HNSW index for fast search
-CREATE INDEX IF NOT EXISTS vector_store_embedding_idx ON vector_store USING HNSW (embedding vector_cosine_ops);
+-- The ANN index (vector_store_embedding_idx) is built by VectorIndexInitializer from the book.vector.* properties.
+-- VECTOR(1536) has to match book.vector.dimensions.
+
+-- Look up a book's document(s) for updates, deletes and orphan reconciliation
+CREATE INDEX IF NOT EXISTS vector_store_book_id_idx ON vector_store ((metadata->>'bookId'));
+
+-- Persistent tier of the embedding cache, keyed by SHA-256(model + text); embedding is raw float32 bytes
+CREATE TABLE IF NOT EXISTS embedding_cache (
+       cache_key TEXT PRIMARY KEY,
+       model TEXT NOT NULL,
+       embedding BYTEA NOT NULL,
+       created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+    );
+
+-- Rows older than book.embedding.cache.retention are purged by created_at
+CREATE INDEX IF NOT EXISTS embedding_cache_created_at_idx ON embedding_cache (created_at);
+
+-- Metadata filters (e.g. per-user search on metadata.email) are answered from this index, both for
+-- Spring AI filter expressions (jsonpath @@) and containment (@>) queries
+CREATE INDEX IF NOT EXISTS vector_store_metadata_idx ON vector_store USING GIN (metadata jsonb_path_ops);
+
+-- Deleted books (and books moved to another user) for delta sync, written by the book change trigger;
+-- change_xid is the id of the deleting transaction
+CREATE TABLE IF NOT EXISTS book_tombstone (
+       book_id BIGINT NOT NULL,
+       user_email TEXT NOT NULL,
+       change_xid BIGINT NOT NULL,
+       deleted_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+       PRIMARY KEY (book_id, user_email)
+    );
+
+CREATE INDEX IF NOT EXISTS book_tombstone_change_xid_idx ON book_tombstone (change_xid);
@@ -0,0 +1,98 @@
+package com.telusko.aipoweredlibrarytrackerbackend;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Deterministic embedding model for tests. Every text gets a small constant first component, plus one
+// for each registered topic word it contains, so texts sharing a topic are close (cosine ~1) and all
+// other pairs are far apart (cosine ~0.01). Records what was embedded and can fail on demand.
+public class FakeEmbeddingModel implements EmbeddingModel {
+
+    private final int dimensions;
+    private final Map<String, Integer> topics = new ConcurrentHashMap<>();
+    private final List<String> embedded = new CopyOnWriteArrayList<>();
+    private volatile RuntimeException failure;
+    private volatile Consumer<List<String>> beforeEmbed;
+
+    public FakeEmbeddingModel(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    // Texts containing the word point into the same direction as other texts of that topic
+    public FakeEmbeddingModel topic(String topic, String... words) {
+        int dimension = 1 + Math.floorMod(topic.hashCode(), dimensions - 1);
+        for (String word : words) {
+            topics.put(word.toLowerCase(Locale.ROOT), dimension);
+        }
+        return this;
+    }
+
+    public void failWith(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    // Runs before each (uncached) embedding request, e.g. to change data while a worker embeds
+    public void beforeEmbed(Consumer<List<String>> hook) {
+        this.beforeEmbed = hook;
+    }
+
+    public List<String> embeddedTexts() {
+        return List.copyOf(embedded);
+    }
+
+    public void reset() {
+        topics.clear();
+        embedded.clear();
+        failure = null;
+        beforeEmbed = null;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (beforeEmbed != null) {
+            beforeEmbed.accept(request.getInstructions());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        List<Embedding> embeddings = new ArrayList<>();
+        for (String text : request.getInstructions()) {
+            embedded.add(text);
+            embeddings.add(new Embedding(vector(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private float[] vector(String text) {
+        float[] vector = new float[dimensions];
+        vector[0] = 0.1f;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            Integer dimension = topics.get(word);
+            if (dimension != null) {
+                vector[dimension] = 1.0f;
+            }
+        }
+        return vector;
+    }
+}
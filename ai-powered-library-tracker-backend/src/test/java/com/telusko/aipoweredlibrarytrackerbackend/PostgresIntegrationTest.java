@@ -0,0 +1,75 @@
+package com.telusko.aipoweredlibrarytrackerbackend;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+// Base for tests of the SQL heavy parts against a real Postgres with pgvector. One container is shared
+// by all test classes (and the cached application context); the tables are emptied before each test.
+// Embeddings come from FakeEmbeddingModel, the other OpenAI models are never called. The outbox workers
+// and the scheduled reconciliation are off, tests drive them directly.
+@SpringBootTest(properties = {
+        "spring.docker.compose.enabled=false",
+        "spring.ai.openai.api-key=test",
+        "spring.ai.model.embedding=none",
+        "book.embedding.outbox.workers=0",
+        "book.embedding.outbox.max-attempts=3",
+        "book.embedding.outbox.backoff-base-ms=60000",
+        "book.vector.reconcile-initial-delay-ms=3600000",
+        "book.covers.directory=target/test-data/covers",
+        "book.import.directory=target/test-data/imports",
+        "book.voice.transcode=false",
+        "management.tracing.sampling.probability=0.0"
+})
+@Import(PostgresIntegrationTest.TestModels.class)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class TestModels {
+
+        // Replaces the OpenAI embedding model, VectorStoreConfig wraps it with the cache as usual
+        @Bean
+        FakeEmbeddingModel openAiEmbeddingModel() {
+            return new FakeEmbeddingModel(1536);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        // Started once, on first use; Testcontainers removes it when the JVM exits
+        postgres.start();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected FakeEmbeddingModel embeddingModel;
+
+    @BeforeEach
+    void cleanDatabase() {
+        jdbcTemplate.update("DELETE FROM embedding_outbox");
+        jdbcTemplate.update("DELETE FROM vector_store");
+        jdbcTemplate.update("DELETE FROM book");
+        jdbcTemplate.update("DELETE FROM book_tombstone");
+        // The in-memory tier of the embedding cache lives as long as the context; tests use their own texts
+        jdbcTemplate.update("DELETE FROM embedding_cache");
+        embeddingModel.reset();
+    }
+}
@@ -0,0 +1,101 @@
+package com.telusko.aipoweredlibrarytrackerbackend.config;
+
+import com.telusko.aipoweredlibrarytrackerbackend.PostgresIntegrationTest;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookChanges;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import com.telusko.aipoweredlibrarytrackerbackend.service.BookSyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The change tracking triggers, seen through the delta sync that depends on them
+class BookChangeTrackingInitializerTest extends PostgresIntegrationTest {
+
+    private static final String ALICE = "alice@example.com";
+    private static final String BOB = "bob@example.com";
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void stampsInsertsAndUpdates() throws Exception {
+        Book unchanged = save("Persuasion", ALICE);
+        Book updated = save("Sense and Sensibility", ALICE);
+        Instant before = bookRepo.findById(updated.getId()).orElseThrow().getUpdatedAt();
+        String token = bookSyncService.getChanges(null, null).getToken();
+
+        jdbcTemplate.update("UPDATE book SET read = true WHERE id = ?", updated.getId());
+        Book inserted = save("Mansfield Park", ALICE);
+
+        BookChanges changes = bookSyncService.getChanges(token, null);
+        assertThat(changes.isFullSync()).isFalse();
+        assertThat(changes.getBooks()).extracting(Book::getId)
+                .contains(updated.getId(), inserted.getId())
+                .doesNotContain(unchanged.getId());
+        assertThat(bookRepo.findById(updated.getId()).orElseThrow().getUpdatedAt()).isAfter(before);
+    }
+
+    @Test
+    void ignoresEmbeddingHashUpdates() throws Exception {
+        Book book = save("Northanger Abbey", ALICE);
+        String token = bookSyncService.getChanges(null, null).getToken();
+
+        transactionTemplate.executeWithoutResult(status -> bookRepo.updateEmbeddingHash(book.getId(), "hash"));
+
+        assertThat(bookSyncService.getChanges(token, null).getBooks()).isEmpty();
+    }
+
+    @Test
+    void leavesTombstonesForDeletedBooks() throws Exception {
+        Book book = save("Lady Susan", ALICE);
+        String token = bookSyncService.getChanges(null, null).getToken();
+
+        bookRepo.deleteById(book.getId());
+
+        assertThat(bookSyncService.getChanges(token, null).getDeletedIds()).containsExactly(book.getId());
+        assertThat(bookSyncService.getChanges(token, ALICE).getDeletedIds()).containsExactly(book.getId());
+    }
+
+    @Test
+    void aMoveToAnotherUserIsADeleteForTheOldOwnerOnly() throws Exception {
+        Book book = save("Sanditon", ALICE);
+        String token = bookSyncService.getChanges(null, null).getToken();
+
+        jdbcTemplate.update("UPDATE book SET user_email = ? WHERE id = ?", BOB, book.getId());
+
+        BookChanges alice = bookSyncService.getChanges(token, ALICE);
+        assertThat(alice.getDeletedIds()).containsExactly(book.getId());
+        assertThat(alice.getBooks()).isEmpty();
+
+        BookChanges bob = bookSyncService.getChanges(token, BOB);
+        assertThat(bob.getDeletedIds()).isEmpty();
+        assertThat(bob.getBooks()).extracting(Book::getId).containsExactly(book.getId());
+
+        // Unscoped the book still exists, so it is a change and not a delete
+        BookChanges all = bookSyncService.getChanges(token, null);
+        assertThat(all.getDeletedIds()).isEmpty();
+        assertThat(all.getBooks()).extracting(Book::getId).containsExactly(book.getId());
+    }
+
+    private Book save(String title, String email) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Jane Austen");
+        book.setGenre("Fiction");
+        book.setDescription("A novel.");
+        book.setPageCount(250);
+        book.setUserEmail(email);
+        return bookRepo.save(book);
+    }
+}
@@ -0,0 +1,86 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.CatalogBook;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.CatalogBookRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookCatalogServiceTest {
+
+    @Mock
+    private CatalogBookRepo catalogBookRepo;
+
+    @InjectMocks
+    private BookCatalogService bookCatalogService;
+
+    @Test
+    void keyIgnoresCaseAccentsPunctuationAndSpacing() {
+        assertThat(BookCatalogService.key("  The Lord of the Rings: The Fellowship  "))
+                .isEqualTo("the lord of the rings the fellowship");
+        assertThat(BookCatalogService.key("the lord of the RINGS -- the fellowship"))
+                .isEqualTo("the lord of the rings the fellowship");
+        assertThat(BookCatalogService.key("Les Misérables")).isEqualTo("les miserables");
+        assertThat(BookCatalogService.key("Cien años de soledad")).isEqualTo("cien anos de soledad");
+    }
+
+    @Test
+    void keyUsesTheDigitsOfAnIsbn() {
+        assertThat(BookCatalogService.key("978-0-261-10235-4")).isEqualTo("isbn:9780261102354");
+        assertThat(BookCatalogService.key("978 0261102354")).isEqualTo("isbn:9780261102354");
+        assertThat(BookCatalogService.key("0-261-10235-x")).isEqualTo("isbn:026110235X");
+    }
+
+    @Test
+    void keyTreatsOtherNumbersAsTitles() {
+        assertThat(BookCatalogService.key("1984")).isEqualTo("1984");
+        assertThat(BookCatalogService.key("Catch-22")).isEqualTo("catch 22");
+    }
+
+    @Test
+    void savesVerifiedDetails() {
+        ReflectionTestUtils.setField(bookCatalogService, "enabled", true);
+        when(catalogBookRepo.findById("dune")).thenReturn(Optional.empty());
+
+        bookCatalogService.save("dune", book("Frank Herbert"));
+
+        ArgumentCaptor<CatalogBook> saved = ArgumentCaptor.forClass(CatalogBook.class);
+        verify(catalogBookRepo).save(saved.capture());
+        assertThat(saved.getValue().getCatalogKey()).isEqualTo("dune");
+        assertThat(saved.getValue().getAuthor()).isEqualTo("Frank Herbert");
+        assertThat(saved.getValue().getCoverKey()).isEqualTo("cover");
+        assertThat(saved.getValue().getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void doesNotSaveBooksTheModelCouldNotIdentify() {
+        ReflectionTestUtils.setField(bookCatalogService, "enabled", true);
+
+        bookCatalogService.save("dune", book("Unknown"));
+        bookCatalogService.save("dune", book(" "));
+
+        verify(catalogBookRepo, never()).save(any());
+    }
+
+    private static Book book(String author) {
+        Book book = new Book();
+        book.setTitle("Dune");
+        book.setAuthor(author);
+        book.setCoverKey("cover");
+        return book;
+    }
+}
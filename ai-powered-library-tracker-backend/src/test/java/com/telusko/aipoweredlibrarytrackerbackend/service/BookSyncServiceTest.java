@@ -0,0 +1,115 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.SyncTokenExpiredException;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.BookChanges;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookSyncServiceTest {
+
+    private static final String ALICE = "alice@example.com";
+
+    @Mock
+    private BookRepo bookRepo;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private BookSyncService bookSyncService;
+
+    private final Book book = new Book();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bookSyncService, "tombstoneRetention", Duration.ofDays(30));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1234L);
+    }
+
+    @Test
+    void withoutATokenReturnsEverythingAndANewToken() throws Exception {
+        when(bookRepo.findAll()).thenReturn(List.of(book));
+
+        long before = Instant.now().toEpochMilli();
+        BookChanges changes = bookSyncService.getChanges(null, null);
+
+        assertThat(changes.isFullSync()).isTrue();
+        assertThat(changes.getBooks()).containsExactly(book);
+        assertThat(changes.getDeletedIds()).isEmpty();
+        String[] token = changes.getToken().split("\\.");
+        assertThat(token[0]).isEqualTo("1234");
+        assertThat(Long.parseLong(token[1])).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    void aFullSyncForAUserOnlyLoadsTheirBooks() throws Exception {
+        when(bookRepo.findAllByUserEmail(ALICE)).thenReturn(List.of(book));
+
+        assertThat(bookSyncService.getChanges(" ", ALICE).getBooks()).containsExactly(book);
+        verify(bookRepo).findAllByUserEmail(ALICE);
+        verifyNoMoreInteractions(bookRepo);
+    }
+
+    @Test
+    void aTokenReturnsChangesSinceItsTransaction() throws Exception {
+        String since = "1000." + Instant.now().toEpochMilli();
+        when(bookRepo.findChangedSince(1000L)).thenReturn(List.of(book));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1000L))).thenReturn(List.of(7L));
+
+        BookChanges changes = bookSyncService.getChanges(since, null);
+
+        assertThat(changes.isFullSync()).isFalse();
+        assertThat(changes.getBooks()).containsExactly(book);
+        assertThat(changes.getDeletedIds()).containsExactly(7L);
+        assertThat(changes.getToken()).startsWith("1234.");
+    }
+
+    @Test
+    void aScopedTokenOnlyLooksAtTheUsersBooksAndTombstones() throws Exception {
+        String since = "1000." + Instant.now().toEpochMilli();
+        when(bookRepo.findChangedSinceByUserEmail(ALICE, 1000L)).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(ALICE), eq(1000L))).thenReturn(List.of(7L));
+
+        BookChanges changes = bookSyncService.getChanges(since, ALICE);
+
+        assertThat(changes.getBooks()).isEmpty();
+        assertThat(changes.getDeletedIds()).containsExactly(7L);
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> bookSyncService.getChanges("1000", null)).isInstanceOf(SyncTokenExpiredException.class);
+        assertThatThrownBy(() -> bookSyncService.getChanges("abc.123", null)).isInstanceOf(SyncTokenExpiredException.class);
+        assertThatThrownBy(() -> bookSyncService.getChanges("1.2.3", null)).isInstanceOf(SyncTokenExpiredException.class);
+    }
+
+    @Test
+    void rejectsTokensOlderThanTheTombstones() {
+        String since = "1000." + Instant.now().minus(Duration.ofDays(31)).toEpochMilli();
+
+        assertThatThrownBy(() -> bookSyncService.getChanges(since, null))
+                .isInstanceOf(SyncTokenExpiredException.class)
+                .hasMessageContaining("full sync");
+    }
+}
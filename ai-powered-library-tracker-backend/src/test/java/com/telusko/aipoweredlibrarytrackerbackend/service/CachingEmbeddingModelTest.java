@@ -0,0 +1,137 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.FakeEmbeddingModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CachingEmbeddingModelTest {
+
+    private final FakeEmbeddingModel delegate = new FakeEmbeddingModel(8).topic("dragons", "dragon");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // The embedding_cache table: cache_key -> embedding bytes
+    private final Map<String, byte[]> table = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(call -> {
+            List<Object[]> rows = call.getArgument(1);
+            rows.forEach(row -> table.putIfAbsent((String) row[0], (byte[]) row[2]));
+            return new int[rows.size()];
+        });
+        doAnswer(call -> {
+            RowCallbackHandler handler = call.getArgument(1);
+            for (String key : (String[]) call.getArgument(2)) {
+                byte[] embedding = table.get(key);
+                if (embedding != null) {
+                    ResultSet row = mock(ResultSet.class);
+                    when(row.getString(1)).thenReturn(key);
+                    when(row.getBytes(2)).thenReturn(embedding);
+                    handler.processRow(row);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any());
+    }
+
+    @Test
+    void embedsEachTextOnceAndAnswersRepeatsFromMemory() {
+        CachingEmbeddingModel model = cache(100);
+
+        float[] first = model.embed("a dragon");
+        float[] second = model.embed("a dragon");
+
+        assertThat(second).containsExactly(first);
+        assertThat(delegate.embeddedTexts()).containsExactly("a dragon");
+        assertThat(requests("miss")).isEqualTo(1);
+        assertThat(requests("memory-hit")).isEqualTo(1);
+        assertThat(table).hasSize(1);
+    }
+
+    @Test
+    void answersFromPostgresAfterARestart() {
+        float[] embedded = cache(100).embed("a dragon");
+
+        // A new instance has an empty memory tier but the same table
+        CachingEmbeddingModel restarted = cache(100);
+
+        assertThat(restarted.embed("a dragon")).containsExactly(embedded);
+        assertThat(delegate.embeddedTexts()).containsExactly("a dragon");
+        assertThat(requests("postgres-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void sendsOnlyTheMissesToTheModelInOneRequest() {
+        CachingEmbeddingModel model = cache(100);
+        float[] b = model.embed("b");
+
+        List<float[]> vectors = model.embed(List.of("a dragon", "b", "c"));
+
+        assertThat(vectors).hasSize(3);
+        assertThat(vectors.get(1)).containsExactly(b);
+        assertThat(vectors.get(0)).isNotEqualTo(vectors.get(2));
+        assertThat(delegate.embeddedTexts()).containsExactly("b", "a dragon", "c");
+    }
+
+    @Test
+    void documentsShareTheCacheWithTexts() {
+        CachingEmbeddingModel model = cache(100);
+        float[] text = model.embed("a dragon");
+
+        assertThat(model.embed(new Document("a dragon"))).containsExactly(text);
+        assertThat(delegate.embeddedTexts()).containsExactly("a dragon");
+        assertThat(requests("memory-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void cachesPerModel() {
+        CachingEmbeddingModel model = cache(100);
+
+        model.embed("a dragon");
+        model.call(new EmbeddingRequest(List.of("a dragon"), EmbeddingOptionsBuilder.builder().withModel("other").build()));
+
+        assertThat(delegate.embeddedTexts()).hasSize(2);
+        assertThat(table).hasSize(2);
+    }
+
+    @Test
+    void memoryTierIsBounded() {
+        CachingEmbeddingModel model = cache(1);
+
+        model.embed("a");
+        model.embed("b");
+        model.embed("a");
+
+        // "a" was evicted from memory by "b" and came back from Postgres
+        assertThat(requests("memory-hit")).isZero();
+        assertThat(requests("postgres-hit")).isEqualTo(1);
+        assertThat(delegate.embeddedTexts()).containsExactly("a", "b");
+    }
+
+    private CachingEmbeddingModel cache(int maxMemoryEntries) {
+        return new CachingEmbeddingModel(delegate, jdbcTemplate, meterRegistry, "text-embedding-ada-002", maxMemoryEntries);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("embedding.cache.requests").tag("result", result).counter().count();
+    }
+}
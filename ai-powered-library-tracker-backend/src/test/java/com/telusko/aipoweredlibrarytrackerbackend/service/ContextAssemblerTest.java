@@ -0,0 +1,153 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContextAssemblerTest {
+
+    // One token per word keeps the budgets easy to reason about
+    private final TokenCountEstimator tokenizer = words();
+
+    @Test
+    void mergesCopiesOfTheSameBookWithoutNamingTheUsers() {
+        ContextAssembler assembler = new ContextAssembler(tokenizer, 1000, 200);
+
+        ContextAssembler.Context context = assembler.chatContext(List.of(
+                book(1L, "The Hobbit", "J.R.R. Tolkien", "alice@example.com", true),
+                book(2L, "hobbit", "J. R. R. Tolkien", "bob@example.com", false),
+                book(3L, "Dune", "Frank Herbert", "alice@example.com", true)));
+
+        assertThat(context.books()).isEqualTo(2);
+        assertThat(context.text().lines().toList()).containsExactly(
+                "- The Hobbit by J.R.R. Tolkien | Fantasy | 310 pages | added by 2 users | A description.",
+                "- Dune by Frank Herbert | Fantasy | 310 pages | read | A description.");
+        assertThat(context.text()).doesNotContain("@");
+    }
+
+    @Test
+    void leavesOutUnknownFields() {
+        ContextAssembler assembler = new ContextAssembler(tokenizer, 1000, 200);
+        Book book = book(1L, "Lost Title", "Unknown", "alice@example.com", false);
+        book.setGenre("unknown");
+        book.setPageCount(0);
+        book.setDescription("No official description available.");
+
+        assertThat(assembler.chatContext(List.of(book)).text()).isEqualTo("- Lost Title\n");
+    }
+
+    @Test
+    void cutsLongDescriptionsAtAWordBoundary() {
+        ContextAssembler assembler = new ContextAssembler(tokenizer, 1000, 20);
+        Book book = book(1L, "Dune", "Frank Herbert", null, false);
+        book.setDescription("A  desert planet\nand the spice that everyone wants.");
+
+        assertThat(assembler.chatContext(List.of(book)).text())
+                .endsWith("| A desert planet and...\n");
+    }
+
+    @Test
+    void stopsAddingBooksAtTheTokenBudget() {
+        List<Book> books = List.of(
+                book(1L, "One", "A", null, false),
+                book(2L, "Two", "B", null, false),
+                book(3L, "Three", "C", null, false));
+        // "- One by A | Fantasy | 310 pages | A description." is 12 words, + 1 for the newline
+        ContextAssembler assembler = new ContextAssembler(tokenizer, 30, 200);
+
+        ContextAssembler.Context context = assembler.chatContext(books);
+
+        assertThat(context.books()).isEqualTo(2);
+        assertThat(context.tokens()).isEqualTo(26);
+        assertThat(context.text()).contains("One", "Two").doesNotContain("Three");
+    }
+
+    @Test
+    void alwaysKeepsTheFirstBook() {
+        ContextAssembler assembler = new ContextAssembler(tokenizer, 1, 200);
+
+        ContextAssembler.Context context = assembler.chatContext(List.of(
+                book(1L, "One", "A", null, false),
+                book(2L, "Two", "B", null, false)));
+
+        assertThat(context.books()).isEqualTo(1);
+        assertThat(context.text()).contains("One").doesNotContain("Two");
+    }
+
+    @Test
+    void candidateContextKeepsEveryIdWithoutMerging() {
+        ContextAssembler assembler = new ContextAssembler(tokenizer, 1000, 200);
+
+        ContextAssembler.Context context = assembler.candidateContext(List.of(
+                book(7L, "The Hobbit", "J.R.R. Tolkien", "alice@example.com", false),
+                book(9L, "The Hobbit", "J.R.R. Tolkien", "bob@example.com", false)));
+
+        assertThat(context.text().lines().toList()).containsExactly(
+                "Id: 7 | The Hobbit by J.R.R. Tolkien | Fantasy | 310 pages",
+                "Id: 9 | The Hobbit by J.R.R. Tolkien | Fantasy | 310 pages");
+    }
+
+    @Test
+    void adaptiveTopKCutsAtAScoreGap() {
+        List<Document> hits = hits(0.92, 0.90, 0.89, 0.70, 0.69);
+
+        assertThat(ContextAssembler.adaptiveTopK(hits, 2, 0.08, 0.5)).hasSize(3);
+    }
+
+    @Test
+    void adaptiveTopKCutsAtADropFromTheBest() {
+        List<Document> hits = hits(0.95, 0.90, 0.85, 0.78, 0.75);
+
+        assertThat(ContextAssembler.adaptiveTopK(hits, 2, 0.08, 0.15)).hasSize(3);
+    }
+
+    @Test
+    void adaptiveTopKKeepsAtLeastMinK() {
+        List<Document> hits = hits(0.95, 0.50, 0.45);
+
+        assertThat(ContextAssembler.adaptiveTopK(hits, 2, 0.08, 0.15)).hasSize(2);
+        assertThat(ContextAssembler.adaptiveTopK(hits(0.9), 2, 0.08, 0.15)).hasSize(1);
+    }
+
+    @Test
+    void adaptiveTopKKeepsHitsWithoutScores() {
+        List<Document> hits = List.of(Document.builder().text("a").build(), Document.builder().text("b").build(),
+                Document.builder().text("c").build());
+
+        assertThat(ContextAssembler.adaptiveTopK(hits, 1, 0.08, 0.15)).hasSize(3);
+    }
+
+    private static TokenCountEstimator words() {
+        TokenCountEstimator tokenizer = mock(TokenCountEstimator.class);
+        when(tokenizer.estimate(anyString())).thenAnswer(call -> call.<String>getArgument(0).split("\\s+").length);
+        return tokenizer;
+    }
+
+    private static List<Document> hits(double... scores) {
+        return Arrays.stream(scores)
+                .mapToObj(score -> Document.builder().text("book").score(score).build())
+                .toList();
+    }
+
+    private static Book book(Long id, String title, String author, String email, boolean read) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setGenre("Fantasy");
+        book.setPageCount(310);
+        book.setDescription("A description.");
+        book.setUserEmail(email);
+        book.setRead(read);
+        return book;
+    }
+}
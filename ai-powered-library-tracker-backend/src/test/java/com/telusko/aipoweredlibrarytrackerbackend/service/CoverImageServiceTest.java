@@ -0,0 +1,139 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.exception.InvalidImageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoverImageServiceTest {
+
+    @TempDir
+    Path coversDirectory;
+
+    private final CoverStorageService coverStorageService = new CoverStorageService();
+    private final CoverImageService coverImageService = new CoverImageService();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(coverStorageService, "coversDirectory", coversDirectory.toString());
+        coverStorageService.init();
+
+        ReflectionTestUtils.setField(coverImageService, "coverStorageService", coverStorageService);
+        ReflectionTestUtils.setField(coverImageService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coverImageService, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(coverImageService, "maxPixels", 1_000_000L);
+        ReflectionTestUtils.setField(coverImageService, "jpegQuality", 0.82f);
+        ReflectionTestUtils.setField(coverImageService, "webpQuality", 0.80f);
+        ReflectionTestUtils.setField(coverImageService, "workers", 1);
+        coverImageService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        coverImageService.shutdown();
+    }
+
+    @Test
+    void detectsTheTypeFromTheBytes() throws Exception {
+        assertThat(coverImageService.validate(image(40, 60, "png"))).isEqualTo("image/png");
+        assertThat(coverImageService.validate(image(40, 60, "jpeg"))).isEqualTo("image/jpeg");
+
+        // The client's content type is not trusted
+        MockMultipartFile upload = new MockMultipartFile("imageFile", "cover.jpg", "image/jpeg", image(40, 60, "png"));
+        assertThat(coverImageService.validate(upload)).isEqualTo("image/png");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotImages() {
+        byte[] text = "<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> coverImageService.validate(text))
+                .isInstanceOf(InvalidImageException.class)
+                .hasMessageContaining("not a supported image");
+    }
+
+    @Test
+    void rejectsUploadsOverTheSizeLimit() {
+        MockMultipartFile upload = new MockMultipartFile("imageFile", "cover.png", "image/png",
+                new byte[(int) DataSize.ofMegabytes(1).toBytes() + 1]);
+
+        assertThatThrownBy(() -> coverImageService.validate(upload))
+                .isInstanceOf(InvalidImageException.class)
+                .hasMessageContaining("larger than");
+    }
+
+    @Test
+    void rejectsImagesOverThePixelLimitFromTheHeader() throws Exception {
+        ReflectionTestUtils.setField(coverImageService, "maxPixels", 100L);
+
+        assertThatThrownBy(() -> coverImageService.validate(image(20, 20, "png")))
+                .isInstanceOf(InvalidImageException.class)
+                .hasMessageContaining("pixels");
+    }
+
+    @Test
+    void strippedOriginalDropsTheMetadataAndFitsTheFullSize() throws Exception {
+        byte[] original = withTextChunk(image(2048, 1024, "png"), "Location", "secret-location");
+        assertThat(new String(original, StandardCharsets.ISO_8859_1)).contains("secret-location");
+        String key = coverStorageService.store(original);
+
+        Path stripped = coverImageService.findStrippedOriginal(key);
+
+        byte[] served = Files.readAllBytes(stripped);
+        assertThat(new String(served, StandardCharsets.ISO_8859_1)).doesNotContain("secret-location");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(served));
+        assertThat(decoded.getWidth()).isEqualTo(1024);
+        assertThat(decoded.getHeight()).isEqualTo(512);
+        assertThat(coverImageService.findStrippedOriginal(key)).isEqualTo(stripped);
+    }
+
+    @Test
+    void noStrippedOriginalForUndecodableCovers() throws Exception {
+        String key = coverStorageService.store("not an image".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(coverImageService.findStrippedOriginal(key)).isNull();
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    // Insert a tEXt chunk right after the IHDR chunk (8 byte signature + 25 byte IHDR)
+    private static byte[] withTextChunk(byte[] png, String keyword, String text) {
+        byte[] data = (keyword + "\0" + text).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] type = "tEXt".getBytes(StandardCharsets.ISO_8859_1);
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data);
+
+        ByteBuffer chunk = ByteBuffer.allocate(12 + data.length);
+        chunk.putInt(data.length).put(type).put(data).putInt((int) crc.getValue());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(png, 0, 33);
+        out.writeBytes(chunk.array());
+        out.write(png, 33, png.length - 33);
+        return out.toByteArray();
+    }
+}
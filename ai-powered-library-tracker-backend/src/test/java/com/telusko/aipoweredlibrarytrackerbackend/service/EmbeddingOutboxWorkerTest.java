@@ -0,0 +1,187 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.PostgresIntegrationTest;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.model.EmbeddingOutbox;
+import com.telusko.aipoweredlibrarytrackerbackend.model.OutboxStatus;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.EmbeddingOutboxRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddingOutboxWorkerTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EmbeddingOutboxWorker worker;
+
+    @Autowired
+    private EmbeddingOutboxService embeddingOutboxService;
+
+    @Autowired
+    private EmbeddingOutboxRepo embeddingOutboxRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void embedsQueuedBooksAndClearsTheOutbox() {
+        Book book = saveBook("Dune");
+        embeddingOutboxService.enqueue(book.getId());
+
+        assertThat(worker.drainBatch()).isEqualTo(1);
+
+        assertThat(embeddingOutboxRepo.count()).isZero();
+        assertThat(bookRepo.findById(book.getId()).orElseThrow().getEmbeddingHash())
+                .isEqualTo(bookService.embeddingHash(book));
+        assertThat(documentCount(book.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void writesTheEmbeddedVectorWithoutEmbeddingAgain() {
+        Book book = saveBook("Persuasion");
+        embeddingOutboxService.enqueue(book.getId());
+
+        worker.drainBatch();
+
+        // The fake model's vector for a text without topic words
+        float[] expected = new float[1536];
+        expected[0] = 0.1f;
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT content, metadata->>'email' AS email, embedding <=> ?::vector AS distance FROM vector_store WHERE id = ?",
+                VectorIndexLayout.toVectorLiteral(expected), BookService.documentId(book.getId()));
+        assertThat(row.get("content")).isEqualTo(BookService.embeddingContent(book));
+        assertThat(row.get("email")).isEqualTo(book.getUserEmail());
+        assertThat(((Number) row.get("distance")).doubleValue()).isLessThan(1e-6);
+        assertThat(embeddingModel.embeddedTexts()).hasSize(1);
+    }
+
+    @Test
+    void embedsABookQueuedSeveralTimesOnce() {
+        Book book = saveBook("Emma");
+        embeddingOutboxService.enqueueAll(List.of(book.getId(), book.getId(), book.getId()));
+
+        assertThat(worker.drainBatch()).isEqualTo(3);
+
+        assertThat(embeddingModel.embeddedTexts()).containsExactly(BookService.embeddingContent(book));
+        assertThat(embeddingOutboxRepo.count()).isZero();
+        assertThat(documentCount(book.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void leasesClaimedRowsWhileEmbedding() {
+        Book book = saveBook("Ulysses");
+        embeddingOutboxService.enqueue(book.getId());
+
+        AtomicReference<Instant> leasedUntil = new AtomicReference<>();
+        embeddingModel.beforeEmbed(texts -> leasedUntil.set(embeddingOutboxRepo.findAll().get(0).getNextAttemptAt()));
+
+        worker.drainBatch();
+
+        // Not due while the embedding runs outside the claiming transaction
+        assertThat(leasedUntil.get()).isAfter(Instant.now().plus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void backsOffAfterAFailureAndDeadLettersAfterMaxAttempts() {
+        Book book = saveBook("Beloved");
+        embeddingOutboxService.enqueue(book.getId());
+        embeddingModel.failWith(new IllegalStateException("model down"));
+
+        assertThat(worker.drainBatch()).isZero();
+
+        EmbeddingOutbox entry = embeddingOutboxRepo.findAll().get(0);
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        assertThat(entry.getLastError()).contains("model down");
+        // backoff-base-ms is a minute in the tests
+        assertThat(entry.getNextAttemptAt()).isAfter(Instant.now().plus(Duration.ofSeconds(30)));
+        assertThat(worker.drainBatch()).as("not due during the backoff").isZero();
+
+        for (int attempt = 2; attempt <= 3; attempt++) {
+            makeDue();
+            worker.drainBatch();
+        }
+
+        entry = embeddingOutboxRepo.findAll().get(0);
+        assertThat(entry.getAttempts()).isEqualTo(3);
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatus.DEAD);
+
+        makeDue();
+        embeddingModel.failWith(null);
+        assertThat(worker.drainBatch()).as("dead rows are not claimed").isZero();
+        assertThat(bookRepo.findById(book.getId()).orElseThrow().getEmbeddingHash()).isNull();
+    }
+
+    @Test
+    void skipsABookChangedWhileItWasEmbedded() {
+        Book book = saveBook("Middlemarch");
+        embeddingOutboxService.enqueue(book.getId());
+
+        // A user edit lands between the embedding call and the write
+        AtomicBoolean edited = new AtomicBoolean();
+        embeddingModel.beforeEmbed(texts -> {
+            if (edited.compareAndSet(false, true)) {
+                jdbcTemplate.update("UPDATE book SET title = ? WHERE id = ?", book.getTitle() + " (2nd ed.)", book.getId());
+            }
+        });
+
+        worker.drainBatch();
+
+        assertThat(bookRepo.findById(book.getId()).orElseThrow().getEmbeddingHash()).isNull();
+        assertThat(documentCount(book.getId())).isZero();
+
+        // The edit queued the book again; that round embeds the current state
+        embeddingOutboxService.enqueue(book.getId());
+        worker.drainBatch();
+
+        Book current = bookRepo.findById(book.getId()).orElseThrow();
+        assertThat(current.getEmbeddingHash()).isEqualTo(bookService.embeddingHash(current));
+        assertThat(documentCount(book.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void dropsRowsOfDeletedBooks() {
+        Book book = saveBook("Rebecca");
+        embeddingOutboxService.enqueue(book.getId());
+        bookRepo.deleteById(book.getId());
+
+        assertThat(worker.drainBatch()).isEqualTo(1);
+
+        assertThat(embeddingOutboxRepo.count()).isZero();
+        assertThat(embeddingModel.embeddedTexts()).isEmpty();
+    }
+
+    private Book saveBook(String title) {
+        Book book = new Book();
+        // Unique text per test: the in-memory embedding cache outlives the test
+        book.setTitle(title + " " + UUID.randomUUID());
+        book.setAuthor("Author");
+        book.setGenre("Fiction");
+        book.setDescription("A novel.");
+        book.setPageCount(300);
+        book.setUserEmail("reader@example.com");
+        return bookRepo.save(book);
+    }
+
+    private void makeDue() {
+        jdbcTemplate.update("UPDATE embedding_outbox SET next_attempt_at = now()");
+    }
+
+    private int documentCount(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM vector_store WHERE metadata->>'bookId' = ?",
+                Integer.class, String.valueOf(bookId));
+    }
+}
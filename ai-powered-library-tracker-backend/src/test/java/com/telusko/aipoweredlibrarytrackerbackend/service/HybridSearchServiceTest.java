@@ -0,0 +1,96 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.PostgresIntegrationTest;
+import com.telusko.aipoweredlibrarytrackerbackend.model.Book;
+import com.telusko.aipoweredlibrarytrackerbackend.repository.BookRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HybridSearchServiceTest extends PostgresIntegrationTest {
+
+    private static final String ALICE = "alice@example.com";
+    private static final String BOB = "bob@example.com";
+
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
+    @Autowired
+    private EmbeddingOutboxService embeddingOutboxService;
+
+    @Autowired
+    private EmbeddingOutboxWorker worker;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private AiMetrics aiMetrics;
+
+    private Book hobbit;
+    private Book earthsea;
+    private Book foundation;
+    private Book cookbook;
+
+    @BeforeEach
+    void books() {
+        embeddingModel.topic("dragons", "dragon", "dragons", "wyrm");
+        embeddingModel.topic("space", "space", "starship");
+
+        hobbit = save("The Hobbit", "A dragon guards a mountain of treasure.", ALICE);
+        earthsea = save("A Wizard of Earthsea", "A young mage faces an ancient wyrm.", ALICE);
+        foundation = save("Foundation", "An empire in space slowly falls.", ALICE);
+        cookbook = save("Salt Fat Acid Heat", "Treasure every meal.", BOB);
+
+        embeddingOutboxService.enqueueAll(List.of(hobbit.getId(), earthsea.getId(), foundation.getId(), cookbook.getId()));
+        worker.drainBatch();
+    }
+
+    @Test
+    void booksMatchedByBothSidesRankFirst() {
+        // Text: only The Hobbit has both words; vectors: both dragon books
+        assertThat(search("dragon treasure", null)).containsExactly(hobbit.getId(), earthsea.getId());
+    }
+
+    @Test
+    void findsBooksWithoutMatchingWordsThroughTheirEmbedding() {
+        assertThat(search("wyrm", null)).containsExactlyInAnyOrder(hobbit.getId(), earthsea.getId());
+    }
+
+    @Test
+    void unrelatedNeighboursAreCutBySimilarityThreshold() {
+        // Foundation is among the nearest neighbours of any query, but far below the 0.7 similarity
+        assertThat(search("dragons", null)).doesNotContain(foundation.getId(), cookbook.getId());
+        assertThat(search("gardening", null)).isEmpty();
+    }
+
+    @Test
+    void fullTextHitsStillCountWithoutCloseNeighbours() {
+        assertThat(search("treasure", null)).containsExactlyInAnyOrder(hobbit.getId(), cookbook.getId());
+    }
+
+    @Test
+    void scopedSearchOnlySeesTheUsersBooks() {
+        assertThat(search("treasure", BOB)).containsExactly(cookbook.getId());
+        assertThat(search("dragon", BOB)).isEmpty();
+    }
+
+    private List<Long> search(String query, String email) {
+        return hybridSearchService.search(query, email, 10, aiMetrics.start("search"));
+    }
+
+    private Book save(String title, String description, String email) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setGenre("Fiction");
+        book.setDescription(description);
+        book.setPageCount(250);
+        book.setUserEmail(email);
+        return bookRepo.save(book);
+    }
+}
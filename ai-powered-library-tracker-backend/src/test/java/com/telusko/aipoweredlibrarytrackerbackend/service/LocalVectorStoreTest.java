@@ -0,0 +1,113 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telusko.aipoweredlibrarytrackerbackend.FakeEmbeddingModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalVectorStoreTest {
+
+    @TempDir
+    Path indexDirectory;
+
+    private final FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel(8)
+            .topic("dragons", "dragon")
+            .topic("space", "space");
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+    private LocalVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        vectorStore = new LocalVectorStore(embeddingModel, new ObjectMapper(), indexDirectory, 16, 100);
+        vectorStore.add(List.of(
+                document("1", "A dragon hoards gold.", "alice", "Fantasy", 1),
+                document("2", "A dragon sleeps.", "bob", "Fantasy", 2),
+                document("3", "A ship in space.", "alice", "Science Fiction", 3)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        vectorStore.close();
+    }
+
+    @Test
+    void returnsTheNearestDocumentsWithScoreAndDistance() {
+        List<Document> hits = vectorStore.similaritySearch(SearchRequest.builder()
+                .query("dragon").topK(2).similarityThreshold(0.5).build());
+
+        assertThat(hits).extracting(Document::getId).containsExactlyInAnyOrder("1", "2");
+        assertThat(hits).allSatisfy(hit -> {
+            assertThat(hit.getScore()).isGreaterThan(0.99);
+            assertThat((Double) hit.getMetadata().get("distance")).isLessThan(0.01);
+            assertThat(hit.getMetadata()).containsEntry("genre", "Fantasy");
+        });
+    }
+
+    @Test
+    void translatesComparisonFilters() {
+        assertThat(ids(b.eq("userEmail", "alice"))).containsExactlyInAnyOrder("1", "3");
+        assertThat(ids(b.ne("userEmail", "alice"))).containsExactly("2");
+        assertThat(ids(b.eq("bookId", 3))).containsExactly("3");
+        assertThat(ids(b.in("genre", "Fantasy", "Poetry"))).containsExactlyInAnyOrder("1", "2");
+        assertThat(ids(b.nin("genre", "Fantasy", "Poetry"))).containsExactly("3");
+    }
+
+    @Test
+    void translatesLogicalFilters() {
+        assertThat(ids(b.and(b.eq("userEmail", "alice"), b.eq("genre", "Fantasy")))).containsExactly("1");
+        assertThat(ids(b.or(b.eq("userEmail", "bob"), b.eq("genre", "Science Fiction"))))
+                .containsExactlyInAnyOrder("2", "3");
+        assertThat(ids(b.not(b.eq("userEmail", "alice")))).containsExactly("2");
+        assertThat(ids(b.and(b.group(b.or(b.eq("bookId", 1), b.eq("bookId", 2))), b.ne("userEmail", "bob"))))
+                .containsExactly("1");
+    }
+
+    @Test
+    void rejectsFiltersItCannotTranslate() {
+        assertThatThrownBy(() -> ids(b.gt("bookId", 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("GT");
+    }
+
+    @Test
+    void addReplacesDocumentsWithTheSameId() {
+        vectorStore.add(List.of(document("1", "A ship lost in space.", "alice", "Science Fiction", 1)));
+
+        assertThat(vectorStore.count()).isEqualTo(3);
+        assertThat(ids(b.eq("genre", "Science Fiction"))).containsExactlyInAnyOrder("1", "3");
+    }
+
+    @Test
+    void deletesByIdAndByFilter() {
+        vectorStore.delete(List.of("2"));
+        assertThat(vectorStore.count()).isEqualTo(2);
+
+        vectorStore.delete(b.eq("userEmail", "alice").build());
+        assertThat(vectorStore.count()).isZero();
+    }
+
+    private List<String> ids(FilterExpressionBuilder.Op filter) {
+        Filter.Expression expression = filter.build();
+        return vectorStore.similaritySearch(SearchRequest.builder()
+                        .query("book").topK(10).filterExpression(expression).build())
+                .stream().map(Document::getId).toList();
+    }
+
+    private static Document document(String id, String text, String email, String genre, long bookId) {
+        return new Document(id, text, Map.of("userEmail", email, "genre", genre, "bookId", bookId));
+    }
+}
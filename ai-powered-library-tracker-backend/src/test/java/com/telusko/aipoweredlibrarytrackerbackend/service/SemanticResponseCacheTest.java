@@ -0,0 +1,109 @@
+package com.telusko.aipoweredlibrarytrackerbackend.service;
+
+import com.telusko.aipoweredlibrarytrackerbackend.model.BooksChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SemanticResponseCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SemanticResponseCache cache = new SemanticResponseCache();
+
+    private final List<Document> context = List.of(document(1L), document(2L));
+
+    @BeforeEach
+    void setUp() {
+        configure(Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void answersNearbyQueriesWithTheSameContext() {
+        cache.put(new float[]{1, 0, 0}, context, "answer");
+
+        // cosine distance ~0.005, within max-distance 0.05
+        assertThat(cache.lookup(new float[]{1, 0.1f, 0}, context)).contains("answer");
+        assertThat(hits("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void missesDistantQueries() {
+        cache.put(new float[]{1, 0, 0}, context, "answer");
+
+        // cosine distance ~0.1
+        assertThat(cache.lookup(new float[]{1, 0.5f, 0}, context)).isEmpty();
+        assertThat(cache.lookup(new float[]{0, 1, 0}, context)).isEmpty();
+        assertThat(hits("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void contextMustBeTheSameSetOfDocuments() {
+        cache.put(new float[]{1, 0, 0}, context, "answer");
+
+        assertThat(cache.lookup(new float[]{1, 0, 0}, List.of(document(2L), document(1L)))).contains("answer");
+        assertThat(cache.lookup(new float[]{1, 0, 0}, List.of(document(1L)))).isEmpty();
+        assertThat(cache.lookup(new float[]{1, 0, 0}, List.of(document(1L), document(3L)))).isEmpty();
+    }
+
+    @Test
+    void dropsEntriesWhenOneOfTheirBooksChanges() {
+        cache.put(new float[]{1, 0, 0}, context, "answer");
+        List<Document> other = List.of(document(3L));
+        cache.put(new float[]{1, 0, 0}, other, "other answer");
+
+        cache.onBooksChanged(new BooksChangedEvent(List.of(2L)));
+
+        assertThat(cache.lookup(new float[]{1, 0, 0}, context)).isEmpty();
+        assertThat(cache.lookup(new float[]{1, 0, 0}, other)).contains("other answer");
+    }
+
+    @Test
+    void expiredEntriesAreNotServed() {
+        configure(Duration.ofMillis(-1), 100);
+        cache.put(new float[]{1, 0, 0}, context, "answer");
+
+        assertThat(cache.lookup(new float[]{1, 0, 0}, context)).isEmpty();
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        configure(Duration.ofHours(1), 2);
+        List<Document> first = List.of(document(1L));
+        List<Document> second = List.of(document(2L));
+        List<Document> third = List.of(document(3L));
+
+        cache.put(new float[]{1, 0, 0}, first, "first");
+        cache.put(new float[]{1, 0, 0}, second, "second");
+        cache.lookup(new float[]{1, 0, 0}, first);
+        cache.put(new float[]{1, 0, 0}, third, "third");
+
+        assertThat(cache.lookup(new float[]{1, 0, 0}, first)).contains("first");
+        assertThat(cache.lookup(new float[]{1, 0, 0}, second)).isEmpty();
+        assertThat(cache.lookup(new float[]{1, 0, 0}, third)).contains("third");
+    }
+
+    private void configure(Duration ttl, int maxEntries) {
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxDistance", 0.05);
+        ReflectionTestUtils.setField(cache, "ttl", ttl);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        cache.init();
+    }
+
+    private double hits(String result) {
+        return meterRegistry.get("chat.semantic.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static Document document(Long bookId) {
+        return new Document(BookService.documentId(bookId), "Book " + bookId, Map.of("bookId", String.valueOf(bookId)));
+    }
+}